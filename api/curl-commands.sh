@@ -24,9 +24,91 @@ curl --request PUT \
 ]'
 
 # Load all plays - WOULD TAKE TIME!!
+# Responds with the timings and failures of every play
 curl --request PUT \
   --url http://localhost:8081/load/all
 
+# Load only the first plays of the corpus
+curl --request PUT \
+  --url 'http://localhost:8081/load/all?limit=30'
+
+# ---------------- #
+# --- Processor -- #
+# ---------------- #
+
+# Queue a play inserted into eXist-DB for processing, responds with the queued job
+curl --request POST \
+  --url http://localhost:8082/process/<play-name>
+
+# Get the status of a processing job
+curl --request GET \
+  --url http://localhost:8082/process/jobs/<job-id>
+
+# Get the lines spoken by a character in a scene, wherever they are stored
+curl --request GET \
+  --url 'http://localhost:8082/lines?drama=<title>&scene=<scene-id>&character=<cast-id>'
+
+# Ingest all plays of a directory or zip/tar archive on the processor host, without eXist-DB
+curl --request POST \
+  --url 'http://localhost:8082/process/local?path=<directory-or-archive>'
+
+# Get the status of the running or last local ingestion
+curl --request GET \
+  --url http://localhost:8082/process/local
+
+# Export the plays in eXist-DB into CSV files for neo4j-admin database import
+curl --request POST \
+  --url 'http://localhost:8082/export?output=<directory>'
+
+# Get the status of the running or last export
+curl --request GET \
+  --url http://localhost:8082/export
+
+# ---------------- #
+# -- Visualizer -- #
+# ---------------- #
+
+# Get the character interaction graph of a drama, responds with 304 if the ETag still matches
+curl --request GET \
+  --url http://localhost:8083/api/graph/drama/<drama-title> \
+  --header 'if-none-match: "<etag>"'
+
+# Interaction graph within a range of scenes, by scene ordinal (inclusive); not cached
+curl --request GET \
+  --url 'http://localhost:8083/api/graph/drama/<drama-title>?fromScene=0&toScene=4'
+
+# Scene IDs of a drama in order, the position of a scene is its ordinal
+curl --request GET \
+  --url http://localhost:8083/api/graph/drama/<drama-title>/scenes
+
+# Weighted degree, betweenness, closeness and PageRank of the characters of a drama, highest PageRank first
+curl --request GET \
+  --url http://localhost:8083/api/graph/drama/<drama-title>/metrics
+
+# Communities of the characters of a drama, weighted by interactions or by co-appearances (relation=appears-with)
+curl --request GET \
+  --url 'http://localhost:8083/api/graph/drama/<drama-title>/communities?relation=interacts-with'
+
+# Detect the communities of all dramas and store them on the characters, returned with the graph afterwards
+curl --request POST \
+  --url 'http://localhost:8083/api/graph/communities?relation=interacts-with'
+
+# Progress of the community detection
+curl --request GET \
+  --url http://localhost:8083/api/graph/communities
+
+# Drama summaries maintained by the processor, sorted by any figure and paged
+curl --request GET \
+  --url 'http://localhost:8083/api/summaries/dramas?sort=edgeDensity&order=desc&offset=0&limit=50'
+
+# Author summaries, averaged over the dramas of each author
+curl --request GET \
+  --url 'http://localhost:8083/api/summaries/authors?sort=dramaCount&order=desc'
+
+# Drop the cached graph of a drama, the processor does this after ingesting it
+curl --request DELETE \
+  --url http://localhost:8083/api/graph/cache/drama/<drama-title>
+
 # ---------------- #
 # --- eXist-DB --- #
 # ---------------- #
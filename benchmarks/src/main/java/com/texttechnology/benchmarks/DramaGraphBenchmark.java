@@ -0,0 +1,64 @@
+package com.texttechnology.benchmarks;
+
+import com.texttechnology.DramaRepository;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.extraction.StreamingDramaDataExtraction;
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.ingest.IngestMetrics;
+import com.texttechnology.ingest.IngestMetrics.SizeBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of the interaction, dialogue and co-appearance counts of a drama,
+ * and the writes of {@link DramaRepository} against an in-process stand-in for Neo4J
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DramaGraphBenchmark {
+
+    @Param({"drama.xml", "anon-a-larum-for-london.xml"})
+    public String sample;
+
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    private Drama drama;
+
+    /**
+     * Repository writing to the stand-in, only instantiated for the write benchmarks
+     */
+    @State(Scope.Benchmark)
+    public static class Repository {
+
+        @Param({"statement", "batched"})
+        public String writeMode;
+
+        private DramaRepository repository;
+
+        @Setup
+        public void setUp() {
+            repository = new DramaRepository(new RecordingDriver().getDriver(), IngestMetrics.disabled(), writeMode, 1000, 0);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        drama = new StreamingDramaDataExtraction(Plays.load(sample, scale)).extractData();
+    }
+
+    @Benchmark
+    public DramaGraph aggregate() {
+        return DramaGraph.of(drama);
+    }
+
+    @Benchmark
+    public void write(Repository repository) {
+        repository.repository.insertDrama(drama, sample, null, SizeBucket.UNKNOWN);
+    }
+}
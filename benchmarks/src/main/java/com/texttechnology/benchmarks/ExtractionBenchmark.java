@@ -0,0 +1,43 @@
+package com.texttechnology.benchmarks;
+
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.extraction.DramaDataExtraction;
+import com.texttechnology.extraction.StreamingDramaDataExtraction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of a whole drama from its TEI, by DOM and XPath and by a single StAX pass
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"drama.xml", "anon-a-larum-for-london.xml"})
+    public String sample;
+
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    private String playXML;
+
+    @Setup
+    public void setUp() {
+        playXML = Plays.load(sample, scale);
+    }
+
+    @Benchmark
+    public Drama dom() {
+        return new DramaDataExtraction(playXML).extractData();
+    }
+
+    @Benchmark
+    public Drama stax() {
+        return new StreamingDramaDataExtraction(playXML).extractData();
+    }
+}
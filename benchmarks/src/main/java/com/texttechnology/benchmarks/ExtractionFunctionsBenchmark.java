@@ -0,0 +1,65 @@
+package com.texttechnology.benchmarks;
+
+import com.texttechnology.data.drama.Cast;
+import com.texttechnology.data.drama.Scene;
+import com.texttechnology.extraction.ExtractionFunctions;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each {@link ExtractionFunctions} function on its own, against a document parsed once per trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionFunctionsBenchmark {
+
+    @Param({"drama.xml", "anon-a-larum-for-london.xml"})
+    public String sample;
+
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    private Document playDoc;
+
+    @Setup
+    public void setUp() throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        playDoc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(Plays.load(sample, scale))));
+    }
+
+    @Benchmark
+    public String title() {
+        return ExtractionFunctions.getTitle.apply(playDoc);
+    }
+
+    @Benchmark
+    public String date() {
+        return ExtractionFunctions.getDate.apply(playDoc);
+    }
+
+    @Benchmark
+    public String author() {
+        return ExtractionFunctions.getAuthor.apply(playDoc);
+    }
+
+    @Benchmark
+    public List<Cast> cast() {
+        return ExtractionFunctions.getCast.apply(playDoc);
+    }
+
+    @Benchmark
+    public List<Scene> scenes() {
+        return ExtractionFunctions.getScenes(playDoc);
+    }
+}
@@ -0,0 +1,59 @@
+package com.texttechnology.benchmarks;
+
+import lombok.SneakyThrows;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sample plays packaged with the benchmarks, optionally scaled up synthetically
+ */
+public final class Plays {
+
+    private static final Pattern BODY = Pattern.compile("(<body[^>]*>)(.*)(</body>)", Pattern.DOTALL);
+    private static final Pattern XML_ID = Pattern.compile("xml:id=\"([^\"]*)\"");
+
+    private Plays() {
+    }
+
+    /**
+     * @param sample file name of a play in the {@code samples} directory
+     * @param scale  number of times the scenes of the play are repeated
+     * @return TEI of the play whose body holds {@code scale} copies of the original scenes
+     */
+    public static String load(String sample, int scale) {
+        return scale(read(sample), scale);
+    }
+
+    @SneakyThrows
+    private static String read(String sample) {
+        try (InputStream in = Plays.class.getResourceAsStream("/samples/" + sample)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown sample play " + sample);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Copies get their own scene IDs, so that every copy is extracted as separate scenes
+     * with the same cast, speeches and lines as the original
+     */
+    private static String scale(String playXML, int scale) {
+        if (scale <= 1) {
+            return playXML;
+        }
+        Matcher body = BODY.matcher(playXML);
+        if (!body.find()) {
+            throw new IllegalArgumentException("Play has no body");
+        }
+        StringBuilder scenes = new StringBuilder(body.group(2));
+        for (int copy = 1; copy < scale; copy++) {
+            String suffix = "-copy" + copy;
+            scenes.append(XML_ID.matcher(body.group(2)).replaceAll(id -> "xml:id=\"" + id.group(1) + suffix + "\""));
+        }
+        return playXML.substring(0, body.start(2)) + scenes + playXML.substring(body.end(2));
+    }
+}
@@ -0,0 +1,57 @@
+package com.texttechnology.benchmarks;
+
+import lombok.Getter;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.TransactionWork;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Neo4J {@link Driver}: write transactions run against a transaction that only
+ * counts its statements, so repository benchmarks measure row building and parameter conversion without I/O
+ */
+public final class RecordingDriver {
+
+    @Getter
+    private final AtomicLong statements = new AtomicLong();
+
+    @Getter
+    private final Driver driver = proxy(Driver.class, (method, args) -> switch (method) {
+        case "session" -> session();
+        case "close" -> null;
+        default -> throw new UnsupportedOperationException("Driver." + method);
+    });
+
+    private Session session() {
+        return proxy(Session.class, (method, args) -> switch (method) {
+            case "readTransaction", "writeTransaction" -> ((TransactionWork<?>) args[0]).execute(transaction());
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException("Session." + method);
+        });
+    }
+
+    private Transaction transaction() {
+        return proxy(Transaction.class, (method, args) -> switch (method) {
+            case "run" -> {
+                statements.incrementAndGet();
+                yield proxy(Result.class, (resultMethod, resultArgs) -> null);
+            }
+            case "close", "commit", "rollback" -> null;
+            default -> throw new UnsupportedOperationException("Transaction." + method);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(RecordingDriver.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+}
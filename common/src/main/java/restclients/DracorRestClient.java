@@ -6,11 +6,17 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.rest.client.annotation.ClientHeaderParam;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.io.InputStream;
+
 @Path("/api/v1/corpora")
 @RegisterRestClient(configKey = "dracor-api")
+@RegisterProvider(GzipContentEncoding.class)
 @Dependent
 public interface DracorRestClient {
 
@@ -18,12 +24,13 @@ public interface DracorRestClient {
      * REST Client Operation to get the TEI i.e., XML content of a play from DraCor
      *
      * @param play ID of the play
-     * @return XML String containing the content of the play
+     * @return stream of the XML content of the play, gzip decoded if DraCor compressed it; must be closed
      */
     @GET
     @Path("/eng/plays/{play}/tei")
     @Produces(MediaType.APPLICATION_XML)
-    String getTeiForPlay(@PathParam("play") String play);
+    @ClientHeaderParam(name = HttpHeaders.ACCEPT_ENCODING, value = "gzip")
+    InputStream getTeiForPlay(@PathParam("play") String play);
 
 
     /**
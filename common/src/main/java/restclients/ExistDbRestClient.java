@@ -6,13 +6,16 @@ import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.annotation.ClientHeaderParam;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 @Path("exist/rest/db")
 @RegisterRestClient(configKey = "exist-db")
+@RegisterProvider(GzipContentEncoding.class)
 @Dependent
 public interface ExistDbRestClient {
 
@@ -30,6 +33,20 @@ public interface ExistDbRestClient {
     @Produces(MediaType.APPLICATION_JSON)
     Response insertPlay(@PathParam("playName") String playName, String tei);
 
+    /**
+     * REST API Client operation to insert the play content to the play collection in eXist-DB, streaming it
+     *
+     * @param playName Name of the play
+     * @param tei      stream of the TEI XML, written to the request as it is read
+     * @return REST API Response received from eXist-DB
+     */
+    @PUT
+    @Path("/plays/{playName}.xml")
+    @ClientHeaderParam(name = HttpHeaders.AUTHORIZATION, value = "{generateAuthHeader}")
+    @Consumes(MediaType.APPLICATION_XML)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response insertPlay(@PathParam("playName") String playName, InputStream tei);
+
     /**
      * REST API Client operation to get the XML content of a play
      *
@@ -42,6 +59,19 @@ public interface ExistDbRestClient {
     @ClientHeaderParam(name = HttpHeaders.AUTHORIZATION, value = "{generateAuthHeader}")
     String getPlayXML(@PathParam("playName") String playName);
 
+    /**
+     * REST API Client operation to stream the XML content of a play
+     *
+     * @param playName Name of the play
+     * @return stream of the content, gzip decoded if eXist-DB compressed it; must be closed
+     */
+    @GET
+    @Path("/plays/{playName}.xml")
+    @Produces(MediaType.APPLICATION_XML)
+    @ClientHeaderParam(name = HttpHeaders.AUTHORIZATION, value = "{generateAuthHeader}")
+    @ClientHeaderParam(name = HttpHeaders.ACCEPT_ENCODING, value = "gzip")
+    InputStream streamPlayXML(@PathParam("playName") String playName);
+
     /**
      * REST API Client operation to get all the plays inserted in eXist-DB
      *
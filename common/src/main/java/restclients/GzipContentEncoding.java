@@ -0,0 +1,26 @@
+package restclients;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes gzip encoded responses, which rest clients request with {@code Accept-Encoding: gzip}.
+ * The body is decompressed while it is read, so a streamed response is never held in memory as a whole.
+ */
+public class GzipContentEncoding implements ReaderInterceptor {
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        List<String> encodings = context.getHeaders().get(HttpHeaders.CONTENT_ENCODING);
+        if (encodings != null && encodings.stream().anyMatch("gzip"::equalsIgnoreCase)) {
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            context.setInputStream(new GZIPInputStream(context.getInputStream(), 64 * 1024));
+        }
+        return context.proceed();
+    }
+}
@@ -0,0 +1,26 @@
+package restclients;
+
+/**
+ * Status of the ingestion job of a drama in the processor
+ *
+ * @param id     ID of the job, to poll its status with {@link ProcessorRestClient#getJob(String)}
+ * @param drama  name of the drama
+ * @param status QUEUED, RUNNING, COMPLETED, SKIPPED or FAILED
+ * @param error  cause of the failure, null unless the job failed
+ */
+public record IngestionJobStatus(String id, String drama, String status, String error) {
+
+    /**
+     * @return whether the drama was ingested, skipped as unchanged or failed
+     */
+    public boolean finished() {
+        return "COMPLETED".equals(status) || "SKIPPED".equals(status) || failed();
+    }
+
+    /**
+     * @return whether the job failed
+     */
+    public boolean failed() {
+        return "FAILED".equals(status);
+    }
+}
@@ -1,11 +1,17 @@
 package restclients;
 
 import jakarta.enterprise.context.Dependent;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.util.Map;
+
 @RegisterRestClient(configKey = "processor")
 @Dependent
 public interface ProcessorRestClient {
@@ -13,10 +19,31 @@ public interface ProcessorRestClient {
     /**
      * REST Client Operation for processing a drama
      * @param drama , the name of the drama to be processed
-     * @return REST accepted response from processor
+     * @param hash , content hash of the TEI of the drama, the drama is skipped if it was stored from the same content
+     * @return the queued ingestion job, or the job of the drama already in flight
      */
     @POST
     @Path("/process/{drama}")
-    String process(@PathParam("drama") String drama);
+    @Produces(MediaType.APPLICATION_JSON)
+    IngestionJobStatus process(@PathParam("drama") String drama, @QueryParam("hash") String hash);
+
+    /**
+     * REST Client Operation to get the status of an ingestion job
+     * @param id , ID of the job returned by {@link #process(String, String)}
+     * @return status of the job
+     */
+    @GET
+    @Path("/process/jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    IngestionJobStatus getJob(@PathParam("id") String id);
+
+    /**
+     * REST Client Operation to get the content hashes of all processed dramas
+     * @return content hash of the TEI of each processed drama, by name of the drama
+     */
+    @GET
+    @Path("/process/manifest")
+    @Produces(MediaType.APPLICATION_JSON)
+    Map<String, String> getManifest();
 
 }
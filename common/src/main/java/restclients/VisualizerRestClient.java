@@ -0,0 +1,24 @@
+package restclients;
+
+import jakarta.enterprise.context.Dependent;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
+@Path("/api/graph/cache")
+@RegisterRestClient(configKey = "visualizer")
+@Dependent
+public interface VisualizerRestClient {
+
+    /**
+     * REST Client Operation to drop the cached graph of a drama
+     * @param title , the title of the drama that was (re)ingested
+     * @return REST no content response from visualizer
+     */
+    @DELETE
+    @Path("/drama/{title}")
+    Response invalidateDrama(@PathParam("title") String title);
+
+}
@@ -0,0 +1,9 @@
+package schema;
+
+import java.util.List;
+
+/**
+ * Idempotent schema statements that bring the graph to {@code version}
+ */
+record Migration(int version, List<String> statements) {
+}
@@ -0,0 +1,306 @@
+package schema;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Ensures the constraints and indexes the Cypher queries of the processor and the visualizer rely on.
+ * <p>
+ * Migrations are applied in order of their version and recorded on a {@code SchemaVersion} node. Migrations that
+ * copy data are not safe to run twice at the same time, so a service leases that node before it reads the version
+ * and holds the lease until it applied all migrations; a service starting at the same time waits for the lease
+ * and then finds the schema migrated. The lease is renewed while migrating and expires once a service stopped
+ * migrating without releasing it. Statements are idempotent, so a migration that failed part way is applied again.
+ * Until the schema is online, {@link SchemaReadinessCheck} reports the service as not ready.
+ * <p>
+ * Both services share this class, so it is no bean; each produces one and starts it once it has started.
+ */
+@Slf4j
+public class SchemaBootstrap {
+
+    private static final String SCHEMA_VERSION_CONSTRAINT = """
+            CREATE CONSTRAINT schema_version_name IF NOT EXISTS
+            FOR (v:SchemaVersion) REQUIRE v.name IS UNIQUE
+            """;
+
+    /**
+     * Writing to the node first takes its write lock, so the lease is checked and taken by one service at a time;
+     * returns no row while another service holds the lease
+     */
+    private static final String ACQUIRE_LEASE = """
+            MERGE (v:SchemaVersion {name: 'dcia'})
+            ON CREATE SET v.version = 0
+            SET v.leaseRequestedAt = datetime()
+            WITH v
+            WHERE v.leasedBy IS NULL OR v.leasedBy = $owner OR v.leasedUntil < datetime()
+            SET v.leasedBy = $owner,
+                v.leasedUntil = datetime() + duration({seconds: $leaseSeconds})
+            RETURN v.version AS version
+            """;
+
+    private static final String RENEW_LEASE = """
+            MATCH (v:SchemaVersion {name: 'dcia'})
+            WHERE v.leasedBy = $owner
+            SET v.leasedUntil = datetime() + duration({seconds: $leaseSeconds})
+            """;
+
+    private static final String RELEASE_LEASE = """
+            MATCH (v:SchemaVersion {name: 'dcia'})
+            WHERE v.leasedBy = $owner
+            REMOVE v.leasedBy, v.leasedUntil
+            """;
+
+    private static final String SET_SCHEMA_VERSION = """
+            MATCH (v:SchemaVersion {name: 'dcia'})
+            SET v.version = CASE WHEN v.version < $version THEN $version ELSE v.version END,
+                v.migratedAt = datetime()
+            """;
+
+    private static final String AWAIT_INDEXES = "CALL db.awaitIndexes($timeoutSeconds)";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, List.of(
+                    """
+                    CREATE CONSTRAINT drama_title IF NOT EXISTS
+                    FOR (d:Drama) REQUIRE d.title IS UNIQUE
+                    """,
+                    """
+                    CREATE CONSTRAINT character_cast_id IF NOT EXISTS
+                    FOR (c:Character) REQUIRE c.castId IS UNIQUE
+                    """,
+                    """
+                    CREATE CONSTRAINT scene_drama_title_scene_id IF NOT EXISTS
+                    FOR (s:Scene) REQUIRE (s.dramaTitle, s.sceneId) IS UNIQUE
+                    """,
+                    """
+                    CREATE INDEX scene_drama_title IF NOT EXISTS
+                    FOR (s:Scene) ON (s.dramaTitle)
+                    """,
+                    """
+                    CREATE INDEX drama_source IF NOT EXISTS
+                    FOR (d:Drama) ON (d.source)
+                    """
+            )),
+            // Characters are scoped to their drama, so that dramas sharing a cast ID no longer share a node
+            new Migration(2, List.of(
+                    """
+                    DROP CONSTRAINT character_cast_id IF EXISTS
+                    """,
+                    // Character relationships of a character shared by several dramas mix the counts of all of them,
+                    // so these dramas are flagged to be ingested again before the character is split
+                    """
+                    MATCH (c:Character)
+                    WHERE c.dramaTitle IS NULL AND COUNT { (c)<-[:HAS_CHARACTER]-(:Drama) } > 1
+                    MATCH (d:Drama)-[:HAS_CHARACTER]->(c)
+                    SET d.reingestRequired = true
+                    """,
+                    """
+                    MATCH (c:Character)
+                    WHERE c.dramaTitle IS NULL AND COUNT { (c)<-[:HAS_CHARACTER]-(:Drama) } > 1
+                    MATCH (d:Drama)-[h:HAS_CHARACTER]->(c)
+                    CALL (d, h, c) {
+                        CREATE (d)-[:HAS_CHARACTER]->(copy:Character {dramaTitle: d.title, castId: c.castId, name: c.name, sex: c.sex})
+                        WITH d, h, c, copy
+                        CALL (d, c, copy) {
+                            MATCH (c)-[r:SPEAKS_IN]->(s:Scene {dramaTitle: d.title})
+                            CREATE (copy)-[speaks:SPEAKS_IN]->(s)
+                            SET speaks = properties(r)
+                        }
+                        CALL (d, c, copy) {
+                            MATCH (c)-[:INTERACTS_IN]->(s:Scene {dramaTitle: d.title})
+                            CREATE (copy)-[:INTERACTS_IN]->(s)
+                        }
+                        DELETE h
+                    } IN TRANSACTIONS OF 100 ROWS
+                    """,
+                    """
+                    MATCH (d:Drama)-[:HAS_CHARACTER]->(c:Character)
+                    WHERE c.dramaTitle IS NULL
+                    SET c.dramaTitle = d.title
+                    """,
+                    """
+                    MATCH (c:Character)
+                    WHERE NOT (c)<-[:HAS_CHARACTER]-(:Drama)
+                    CALL (c) {
+                        DETACH DELETE c
+                    } IN TRANSACTIONS OF 1000 ROWS
+                    """,
+                    """
+                    CREATE CONSTRAINT character_drama_title_cast_id IF NOT EXISTS
+                    FOR (c:Character) REQUIRE (c.dramaTitle, c.castId) IS UNIQUE
+                    """
+            )),
+            // Summaries maintained by the corpus aggregation of the processor
+            new Migration(3, List.of(
+                    """
+                    CREATE CONSTRAINT drama_summary_title IF NOT EXISTS
+                    FOR (s:DramaSummary) REQUIRE s.title IS UNIQUE
+                    """,
+                    """
+                    CREATE INDEX drama_summary_author_name IF NOT EXISTS
+                    FOR (s:DramaSummary) ON (s.authorName)
+                    """,
+                    """
+                    CREATE CONSTRAINT author_summary_author_name IF NOT EXISTS
+                    FOR (a:AuthorSummary) REQUIRE a.authorName IS UNIQUE
+                    """
+            )),
+            // Scene ranges of the interaction graph need the ordinals of scenes and the interactions per scene,
+            // which dramas written before lack, so these are flagged to be ingested again
+            new Migration(4, List.of(
+                    """
+                    MATCH (d:Drama)-[:HAS_SCENE]->(s:Scene)
+                    WHERE s.ordinal IS NULL
+                    WITH DISTINCT d
+                    SET d.reingestRequired = true
+                    """
+            ))
+    );
+
+    private static final Duration INDEX_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final Duration LEASE_POLL = Duration.ofSeconds(2);
+
+    private final Driver driver;
+    private final IntConsumer onReady;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile int version;
+    private volatile boolean ready;
+    private volatile String lastError;
+
+    public SchemaBootstrap(Driver driver) {
+        this(driver, version -> {
+        });
+    }
+
+    /**
+     * @param driver to migrate the graph with
+     * @param onReady called with the schema version once all migrations are applied and their indexes are online
+     */
+    public SchemaBootstrap(Driver driver, IntConsumer onReady) {
+        this.driver = driver;
+        this.onReady = onReady;
+    }
+
+    /**
+     * Apply the migrations in the background, retrying until Neo4J is reachable
+     */
+    public void start() {
+        Thread.ofVirtual().name("schema-bootstrap").start(this::bootstrap);
+    }
+
+    /**
+     * @return whether all migrations are applied and their indexes are online
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return schema version of the graph as last read or migrated
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return error of the last failed attempt, null if none failed
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    private void bootstrap() {
+        Duration delay = Duration.ofSeconds(1);
+        while (!ready) {
+            try {
+                migrate();
+                ready = true;
+                lastError = null;
+                log.info("Neo4J schema is at version {}", version);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                lastError = e.toString();
+                log.warn("Could not ensure Neo4J schema, retrying in {} s : {}", delay.toSeconds(), lastError);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = delay.multipliedBy(2).compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay.multipliedBy(2);
+            }
+        }
+        onReady.accept(version);
+    }
+
+    private void migrate() throws InterruptedException {
+        try (Session session = driver.session()) {
+            session.run(SCHEMA_VERSION_CONSTRAINT).consume();
+            version = acquireLease(session);
+            // Statements are committed one by one and may run longer than the lease, so it is renewed alongside
+            Thread renewal = Thread.ofVirtual().name("schema-lease").start(this::renewLease);
+            try {
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version() <= version) continue;
+                    log.info("Migrating Neo4J schema to version {}", migration.version());
+                    // Schema changes cannot share a transaction with data changes, so each statement is committed on its own
+                    migration.statements().forEach(statement -> session.run(statement).consume());
+                    session.run(AWAIT_INDEXES, Values.parameters("timeoutSeconds", INDEX_TIMEOUT.toSeconds())).consume();
+                    session.run(SET_SCHEMA_VERSION, Values.parameters("version", migration.version())).consume();
+                    version = migration.version();
+                }
+            } finally {
+                renewal.interrupt();
+                session.run(RELEASE_LEASE, Values.parameters("owner", owner)).consume();
+            }
+            // Indexes created by another service may still be populating
+            session.run(AWAIT_INDEXES, Values.parameters("timeoutSeconds", INDEX_TIMEOUT.toSeconds())).consume();
+        }
+    }
+
+    /**
+     * @return schema version of the graph, read once the lease is held
+     */
+    private int acquireLease(Session session) throws InterruptedException {
+        boolean waiting = false;
+        while (true) {
+            Result result = session.run(ACQUIRE_LEASE, Values.parameters("owner", owner, "leaseSeconds", LEASE.toSeconds()));
+            if (result.hasNext()) {
+                return result.single().get("version").asInt();
+            }
+            result.consume();
+            if (!waiting) {
+                log.info("Waiting for another service to migrate the Neo4J schema");
+                waiting = true;
+            }
+            Thread.sleep(LEASE_POLL);
+        }
+    }
+
+    private void renewLease() {
+        try (Session session = driver.session()) {
+            while (true) {
+                Thread.sleep(LEASE.dividedBy(4));
+                try {
+                    session.run(RENEW_LEASE, Values.parameters("owner", owner, "leaseSeconds", LEASE.toSeconds())).consume();
+                } catch (Exception e) {
+                    log.warn("Could not renew the Neo4J schema migration lease : {}", e.toString());
+                }
+            }
+        } catch (InterruptedException e) {
+            // Interrupted once the migrations are applied
+        }
+    }
+}
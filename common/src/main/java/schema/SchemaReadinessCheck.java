@@ -0,0 +1,29 @@
+package schema;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+
+/**
+ * Reports the service as ready only once the Neo4J constraints and indexes are online;
+ * produced as a {@code @Readiness} check by each service
+ */
+public class SchemaReadinessCheck implements HealthCheck {
+
+    private final SchemaBootstrap schemaBootstrap;
+
+    public SchemaReadinessCheck(SchemaBootstrap schemaBootstrap) {
+        this.schemaBootstrap = schemaBootstrap;
+    }
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder response = HealthCheckResponse.named("neo4j-schema")
+                .status(schemaBootstrap.isReady())
+                .withData("version", schemaBootstrap.getVersion());
+        if (schemaBootstrap.getLastError() != null) {
+            response.withData("error", schemaBootstrap.getLastError());
+        }
+        return response.build();
+    }
+}
@@ -1,90 +1,204 @@
 package com.texttechnology;
 
 import com.texttechnology.data.drama.Drama;
-import com.texttechnology.data.drama.Scene;
-import com.texttechnology.data.drama.Speaker;
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.ingest.IngestMetrics;
+import com.texttechnology.ingest.IngestMetrics.SizeBucket;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
+import org.neo4j.driver.Value;
 import org.neo4j.driver.Values;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @ApplicationScoped
 public class DramaRepository {
 
     private final Driver driver;
+    private final IngestMetrics metrics;
+    private final WriteMode writeMode;
+    private final int batchSize;
+    private final int scenesPerTransaction;
 
+    /**
+     * Value of {@code Drama.ingestStatus} while the graph of a drama is written in several transactions
+     */
+    public static final String INGEST_IN_PROGRESS = "IN_PROGRESS";
+    /**
+     * Value of {@code Drama.ingestStatus} once the whole graph of a drama is written
+     */
+    public static final String INGEST_COMPLETE = "COMPLETE";
+
+    /**
+     * How the graph for a drama is written within its transaction
+     */
+    public enum WriteMode {
+        /**
+         * One statement per cast member, scene, speaker and character pair
+         */
+        STATEMENT,
+        /**
+         * Rows of each kind are collected and written with a single UNWIND statement per batch
+         */
+        BATCHED
+    }
+
+    /**
+     * The source hash is only recorded when the drama is complete, so an interrupted drama is never skipped as unchanged
+     */
     private static final String CREATE_DRAMA_NODE = """
             MERGE (d:Drama {title: $title})
             SET d.authorName = $authorName,
                 d.date = $date,
-                d.createdAt = datetime()
+                d.createdAt = datetime(),
+                d.source = COALESCE($source, d.source),
+                d.sourceHash = null,
+                d.ingestStatus = $ingestStatus,
+                d.ingestHash = $sourceHash,
+                d.committedScenes = 0
+            """;
+
+    private static final String CHECKPOINT_QUERY = """
+            MATCH (d:Drama {title: $title})
+            RETURN d.ingestStatus AS ingestStatus, d.ingestHash AS ingestHash, d.committedScenes AS committedScenes
+            """;
+
+    private static final String SET_CHECKPOINT = """
+            MATCH (d:Drama {title: $title})
+            SET d.committedScenes = $committedScenes
+            """;
+
+    private static final String COMPLETE_DRAMA = """
+            MATCH (d:Drama {title: $title})
+            SET d.sourceHash = $sourceHash,
+                d.ingestStatus = $ingestStatus,
+                d.completedAt = datetime()
+            REMOVE d.ingestHash, d.committedScenes, d.reingestRequired
             """;
 
-    private static final String CREATE_CAST_NODE = """
+    private static final String DELETE_SCENES = """
+            MATCH (s:Scene {dramaTitle: $dramaTitle})
+            DETACH DELETE s
+            """;
+
+    private static final String DELETE_CAST = """
+            MATCH (c:Character {dramaTitle: $dramaTitle})
+            DETACH DELETE c
+            """;
+
+    private static final String SPEAKER_LINES_QUERY = """
+            MATCH (:Character {dramaTitle: $dramaTitle, castId: $castId})-[r:SPEAKS_IN]->(:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
+            RETURN r.lines AS lines, r.lineOffset AS lineOffset, r.lineCount AS lineCount
+            """;
+
+    private static final String SOURCE_HASH_QUERY = """
+            MATCH (d:Drama {source: $source})
+            RETURN d.sourceHash AS sourceHash
+            """;
+
+    private static final String MANIFEST_QUERY = """
+            MATCH (d:Drama)
+            WHERE d.source IS NOT NULL AND d.sourceHash IS NOT NULL
+            RETURN d.source AS source, d.sourceHash AS sourceHash
+            """;
+
+    private static final String REINGEST_REQUIRED_QUERY = """
+            MATCH (d:Drama {reingestRequired: true})
+            WHERE d.source IS NOT NULL
+            RETURN d.source AS source
+            """;
+
+    private static final String UNWIND_CAST_NODES = """
             MATCH (d:Drama {title: $dramaTitle})
-            MERGE (c:Character {castId: $castId})
-            SET c.name = $name,
-                c.sex = $sex
+            UNWIND $rows AS row
+            MERGE (c:Character {dramaTitle: $dramaTitle, castId: row.castId})
+            SET c.name = row.name,
+                c.sex = row.sex
             MERGE (d)-[:HAS_CHARACTER]->(c)
             """;
 
-    private static final String CREATE_SCENE_NODE = """
+    private static final String UNWIND_SCENE_NODES = """
             MATCH (d:Drama {title: $dramaTitle})
-                MERGE (s:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
-                SET s.distinctSpeakers = $distinctSpeakers,
-                    s.speakerCount = $speakerCount
-                MERGE (d)-[:HAS_SCENE]->(s)
+            UNWIND $rows AS row
+            MERGE (s:Scene {dramaTitle: $dramaTitle, sceneId: row.sceneId})
+            SET s.distinctSpeakers = row.distinctSpeakers,
+                s.speakerCount = row.speakerCount,
+                s.ordinal = row.ordinal
+            MERGE (d)-[:HAS_SCENE]->(s)
             """;
 
-    private static final String CREATE_SPEAKER_RELATION = """
-            MATCH (d:Drama {title: $dramaTitle})
-            MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
-            MATCH (d)-[:HAS_CHARACTER]->(c:Character {castId: $castId})
+    private static final String UNWIND_SPEAKER_RELATIONS = """
+            UNWIND $rows AS row
+            MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: row.sceneId})
+            MATCH (c:Character {dramaTitle: $dramaTitle, castId: row.castId})
             MERGE (c)-[r:SPEAKS_IN]->(s)
-            SET r.lineCount = $lineCount,
-                r.lines = $lines
+            SET r.lineCount = row.lineCount,
+                r.lines = row.lines,
+                r.lineOffset = row.lineOffset
             """;
 
-    private static final String CREATE_INTERACTS_WITH_RELATION = """
-                        MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c1:Character)
-                        MATCH (d)-[:HAS_CHARACTER]->(c2:Character)
-                        WHERE c1.castId = $speaker1 AND c2.castId = $speaker2
-                        MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
-                        MERGE (c1)-[r:INTERACTS_WITH]-(c2)
-                        SET r.interactionCount = COALESCE(r.interactionCount, 0) + 1,
-                            r.lastScene = $sceneId,
-                            r.dramaTitle = $dramaTitle
-                        MERGE (c1)-[:INTERACTS_IN]->(s)
-                        MERGE (c2)-[:INTERACTS_IN]->(s)
-                        """;
-
-    private static final String CREATE_DIALOGUES_WITH_RELATION = """
-                        MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c1:Character)
-                        MATCH (d)-[:HAS_CHARACTER]->(c2:Character)
-                        WHERE c1.castId = $speaker1 AND c2.castId = $speaker2
-                        MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
-                        MERGE (c1)-[r:DIALOGUES_WITH]->(c2)
-                        SET r.sceneCount = COALESCE(r.sceneCount, 0) + 1
-                        """;
-
-    private static final String CREATE_COAPPEARANCE_RELATION = """
-                        MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c1:Character)
-                        MATCH (d)-[:HAS_CHARACTER]->(c2:Character)
-                        WHERE c1.castId = $speaker1 AND c2.castId = $speaker2
-                        MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: $sceneId})
-                        MERGE (c1)-[r:APPEARS_WITH]-(c2)
-                        SET r.coAppearanceCount = COALESCE(r.coAppearanceCount, 0) + 1
-                        """;
+    private static final String UNWIND_INTERACTS_IN_RELATIONS = """
+            UNWIND $rows AS row
+            MATCH (s:Scene {dramaTitle: $dramaTitle, sceneId: row.sceneId})
+            MATCH (c:Character {dramaTitle: $dramaTitle, castId: row.castId})
+            MERGE (c)-[:INTERACTS_IN]->(s)
+            """;
+
+    /**
+     * {@code sceneIndex} holds the ordinals of the scenes a pair interacted in and {@code cumulativeCount} the
+     * interactions up to and including each of them
+     */
+    private static final String UNWIND_INTERACTS_WITH_RELATIONS = """
+            UNWIND $rows AS row
+            MATCH (c1:Character {dramaTitle: $dramaTitle, castId: row.speaker1})
+            MATCH (c2:Character {dramaTitle: $dramaTitle, castId: row.speaker2})
+            MERGE (c1)-[r:INTERACTS_WITH]-(c2)
+            SET r.interactionCount = row.count,
+                r.lastScene = row.lastScene,
+                r.sceneIndex = row.sceneIndex,
+                r.cumulativeCount = row.cumulativeCount,
+                r.dramaTitle = $dramaTitle
+            """;
+
+    private static final String UNWIND_DIALOGUES_WITH_RELATIONS = """
+            UNWIND $rows AS row
+            MATCH (c1:Character {dramaTitle: $dramaTitle, castId: row.speaker1})
+            MATCH (c2:Character {dramaTitle: $dramaTitle, castId: row.speaker2})
+            MERGE (c1)-[r:DIALOGUES_WITH]->(c2)
+            SET r.sceneCount = row.count
+            """;
+
+    private static final String UNWIND_COAPPEARANCE_RELATIONS = """
+            UNWIND $rows AS row
+            MATCH (c1:Character {dramaTitle: $dramaTitle, castId: row.speaker1})
+            MATCH (c2:Character {dramaTitle: $dramaTitle, castId: row.speaker2})
+            MERGE (c1)-[r:APPEARS_WITH]-(c2)
+            SET r.coAppearanceCount = row.count
+            """;
 
     @Inject
-    public DramaRepository(Driver driver) {
+    public DramaRepository(Driver driver,
+                           IngestMetrics metrics,
+                           @ConfigProperty(name = "processor.graph.write-mode", defaultValue = "batched") String writeMode,
+                           @ConfigProperty(name = "processor.graph.batch-size", defaultValue = "1000") int batchSize,
+                           @ConfigProperty(name = "processor.graph.scenes-per-transaction", defaultValue = "25") int scenesPerTransaction) {
         this.driver = driver;
+        this.metrics = metrics;
+        this.writeMode = WriteMode.valueOf(writeMode.strip().toUpperCase(Locale.ROOT));
+        this.batchSize = this.writeMode == WriteMode.STATEMENT ? 1 : Math.max(1, batchSize);
+        this.scenesPerTransaction = Math.max(0, scenesPerTransaction);
+        log.info("Graph write mode: {}, batch size: {}, scenes per transaction: {}", this.writeMode, this.batchSize,
+                this.scenesPerTransaction == 0 ? "all" : this.scenesPerTransaction);
     }
 
     /**
@@ -92,177 +206,298 @@ public class DramaRepository {
      * @param drama to be inserted
      */
     public void insertDrama(Drama drama) {
+        insertDrama(drama, null, null, SizeBucket.UNKNOWN);
+    }
+
+    /**
+     *  Insert {@link Drama} node into Neo4J, replacing a previously inserted version of it.
+     *  <p>
+     *  Unless {@code processor.graph.scenes-per-transaction} is 0, the cast is written in a first transaction,
+     *  the scenes in transactions of that many scenes and the character relationships in a last one,
+     *  and the number of committed scenes is recorded on the drama node. If an earlier attempt to insert
+     *  the same content was interrupted, writing resumes after its last committed scene.
+     * @param drama to be inserted
+     * @param source name of the play in eXist-db, or null to keep the recorded one
+     * @param sourceHash content hash of the TEI the drama was extracted from, or null if unknown
+     * @param size of the TEI the drama was extracted from, to tag the metrics of the statements with
+     */
+    public void insertDrama(Drama drama, String source, String sourceHash, SizeBucket size) {
+        insertDrama(drama, DramaGraph.of(drama), source, sourceHash, size);
+    }
+
+    /**
+     *  Insert {@link Drama} node into Neo4J from rows built beforehand, e.g. with the lines of speakers stored elsewhere
+     * @param drama to be inserted
+     * @param graph rows of the drama
+     * @param source name of the play in eXist-db, or null to keep the recorded one
+     * @param sourceHash content hash of the TEI the drama was extracted from, or null if unknown
+     * @param size of the TEI the drama was extracted from, to tag the metrics of the statements with
+     */
+    public void insertDrama(Drama drama, DramaGraph graph, String source, String sourceHash, SizeBucket size) {
         try (Session session = driver.session()) {
-            session.writeTransaction(tx -> {
-                insertDramaWithTransaction(tx, drama);
-                return null;
-            });
+            if (scenesPerTransaction == 0) {
+                session.writeTransaction(tx -> {
+                    insertDramaWithTransaction(tx, drama, graph, source, sourceHash, size);
+                    return null;
+                });
+            } else {
+                insertDramaInChunks(session, drama, graph, source, sourceHash, size);
+            }
         }
+        metrics.countGraph(size, graph.getSceneRows().size(), graph.getSpeakerRows().size(), relationshipCount(graph));
     }
 
     /**
-     * Create drama node, cast nodes and scenarios and interactions
-     * @param tx an instance of neo4j driver transaction
-     * @param drama whose nodes and cast that need to be inserted
+     * @param dramaTitle title of the drama
+     * @param sceneId    ID of the scene
+     * @param castId     ID of the speaking character
+     * @return the lines stored on the relationship or the reference to them, empty if the character does not speak in the scene
      */
-    private void insertDramaWithTransaction(Transaction tx, Drama drama) {
-        // 1. Create Drama node
-        createDramaNode(tx, drama);
+    public Optional<SpeakerLines> findSpeakerLines(String dramaTitle, String sceneId, String castId) {
+        try (Session session = driver.session()) {
+            return session.run(SPEAKER_LINES_QUERY, Values.parameters("dramaTitle", dramaTitle, "sceneId", sceneId, "castId", castId))
+                    .list(record -> new SpeakerLines(
+                            record.get("lines").isNull() ? null : record.get("lines").asList(Value::asString),
+                            record.get("lineOffset").isNull() ? null : record.get("lineOffset").asLong(),
+                            record.get("lineCount").isNull() ? 0 : record.get("lineCount").asInt()))
+                    .stream()
+                    .findFirst();
+        }
+    }
 
-        // 2. Create Cast/Character nodes
-        createCastNodes(tx, drama);
+    /**
+     * Lines of a character in a scene: either the lines themselves, or their offset in the lines of the drama
+     */
+    public record SpeakerLines(List<String> lines, Long lineOffset, int lineCount) {
+    }
 
-        // 3. Create Scene nodes and relationships
-        createScenesAndInteractions(tx, drama);
+    /**
+     * @param source name of the play in eXist-db
+     * @return content hash of the TEI the stored drama was extracted from, null if unknown
+     */
+    public String findSourceHash(String source) {
+        try (Session session = driver.session()) {
+            return session.run(SOURCE_HASH_QUERY, Values.parameters("source", source))
+                    .list(record -> record.get("sourceHash"))
+                    .stream()
+                    .filter(value -> !value.isNull())
+                    .map(Value::asString)
+                    .findFirst()
+                    .orElse(null);
+        }
     }
 
     /**
-     * Create a drama node
+     * @return content hashes of the TEI of all stored dramas, by name of the play in eXist-db
+     */
+    public Map<String, String> getSourceHashes() {
+        try (Session session = driver.session()) {
+            Map<String, String> hashes = new HashMap<>();
+            session.run(MANIFEST_QUERY).forEachRemaining(record ->
+                    hashes.put(record.get("source").asString(), record.get("sourceHash").asString()));
+            return hashes;
+        }
+    }
+
+    /**
+     * @return names of the plays in eXist-db whose dramas have to be ingested again after a schema migration
+     */
+    public List<String> getSourcesRequiringReingest() {
+        try (Session session = driver.session()) {
+            return session.run(REINGEST_REQUIRED_QUERY).list(record -> record.get("source").asString());
+        }
+    }
+
+    /**
+     * Create drama node, cast nodes and scenarios and interactions
      * @param tx an instance of neo4j driver transaction
+     * @param drama whose nodes and cast that need to be inserted
+     * @param graph rows of the drama
+     * @param source name of the play in eXist-db
+     * @param sourceHash content hash of the TEI
+     * @param size of the TEI
+     */
+    private void insertDramaWithTransaction(Transaction tx, Drama drama, DramaGraph graph, String source, String sourceHash, SizeBucket size) {
+        startDrama(tx, drama, graph, source, sourceHash, size);
+        writeScenes(tx, graph, 0, graph.getSceneRows().size(), size);
+        completeDrama(tx, graph, sourceHash, size);
+    }
+
+    /**
+     * Write the drama in several transactions, resuming an interrupted attempt with the same content
+     * @param session to run the transactions in
      * @param drama to be inserted
+     * @param graph rows of the drama
+     * @param source name of the play in eXist-db
+     * @param sourceHash content hash of the TEI
+     * @param size of the TEI
      */
-    private void createDramaNode(Transaction tx, Drama drama) {
-        tx.run(CREATE_DRAMA_NODE, Values.parameters(
-                "title", drama.getTitle(),
-                "authorName", drama.getAuthorName(),
-                "date", drama.getDate()
-        ));
+    private void insertDramaInChunks(Session session, Drama drama, DramaGraph graph, String source, String sourceHash, SizeBucket size) {
+        int sceneCount = graph.getSceneRows().size();
+        int committedScenes = session.readTransaction(tx -> resumableScenes(tx, graph.getDramaTitle(), sourceHash));
+        if (committedScenes > 0) {
+            log.info("Resuming drama {} after {} of {} committed scenes", graph.getDramaTitle(), committedScenes, sceneCount);
+        } else {
+            session.writeTransaction(tx -> {
+                startDrama(tx, drama, graph, source, sourceHash, size);
+                return null;
+            });
+        }
+        for (int from = committedScenes; from < sceneCount; from += scenesPerTransaction) {
+            int to = Math.min(sceneCount, from + scenesPerTransaction);
+            int fromScene = from;
+            session.writeTransaction(tx -> {
+                writeScenes(tx, graph, fromScene, to, size);
+                run(tx, "checkpoint", size, SET_CHECKPOINT, Values.parameters("title", graph.getDramaTitle(), "committedScenes", to));
+                return null;
+            });
+            log.debug("Committed scenes {} to {} of drama {}", fromScene, to, graph.getDramaTitle());
+        }
+        session.writeTransaction(tx -> {
+            completeDrama(tx, graph, sourceHash, size);
+            return null;
+        });
     }
 
     /**
-     * Create the cast nodes for a drama
      * @param tx an instance of neo4j driver transaction
-     * @param drama to be inserted
+     * @param dramaTitle title of the drama
+     * @param sourceHash content hash of the TEI
+     * @return number of scenes committed by an interrupted attempt to insert the same content, 0 to start over
      */
-    private void createCastNodes(Transaction tx, Drama drama) {
-        drama.getCastList().stream().peek(cast -> log.error("Cast ID : {}", cast.getId())).forEach(cast -> tx.run(CREATE_CAST_NODE, Values.parameters(
-                "dramaTitle", drama.getTitle(),
-                "castId", cast.getId(),
-                "name", cast.getName(),
-                "sex", cast.getSex()
-        )));
+    private static int resumableScenes(Transaction tx, String dramaTitle, String sourceHash) {
+        if (sourceHash == null) return 0;
+        return tx.run(CHECKPOINT_QUERY, Values.parameters("title", dramaTitle)).list().stream()
+                .filter(record -> INGEST_IN_PROGRESS.equals(record.get("ingestStatus").asString(null)))
+                .filter(record -> sourceHash.equals(record.get("ingestHash").asString(null)))
+                .mapToInt(record -> record.get("committedScenes").asInt(0))
+                .findFirst()
+                .orElse(0);
     }
 
     /**
-     * For each scene, create a node and interactions between characters
+     * Replace a previously inserted version by the drama node and its cast, marking the drama as in progress
      * @param tx an instance of neo4j driver transaction
      * @param drama to be inserted
+     * @param graph rows of the drama
+     * @param source name of the play in eXist-db
+     * @param sourceHash content hash of the TEI
+     * @param size of the TEI
      */
-    private void createScenesAndInteractions(Transaction tx, Drama drama) {
-        if (drama.getScenes() == null) return;
+    private void startDrama(Transaction tx, Drama drama, DramaGraph graph, String source, String sourceHash, SizeBucket size) {
+        // 0. Remove a previously inserted version, so that counters are not accumulated
+        deleteDramaGraph(tx, drama.getTitle(), size);
 
-        for (int sceneIndex = 0; sceneIndex < drama.getScenes().size(); sceneIndex++) {
-            Scene scene = drama.getScenes().get(sceneIndex);
-            int sceneNumber = sceneIndex + 1;
-
-            // Create Scene node
-            createSceneNode(tx, drama.getTitle(), scene);
+        // 1. Create Drama node
+        createDramaNode(tx, drama, source, sourceHash, size);
 
-            // Create speaker interactions within the scene
-            createSpeakerInteractions(tx, drama.getTitle(), scene);
+        // 2. Create Cast/Character nodes
+        runBatched(tx, "cast", size, UNWIND_CAST_NODES, graph.getDramaTitle(), graph.getCastRows());
+    }
 
-            // Create character co-appearance relationships
-            createCoAppearanceRelationships(tx, drama.getTitle(), scene);
-        }
+    /**
+     * Create Scene nodes and relationships of a range of scenes
+     * @param tx an instance of neo4j driver transaction
+     * @param graph rows of the drama
+     * @param fromScene index of the first scene, inclusive
+     * @param toScene index of the last scene, exclusive
+     * @param size of the TEI
+     */
+    private void writeScenes(Transaction tx, DramaGraph graph, int fromScene, int toScene, SizeBucket size) {
+        runBatched(tx, "scenes", size, UNWIND_SCENE_NODES, graph.getDramaTitle(), graph.getSceneRows(fromScene, toScene));
+        runBatched(tx, "speaks-in", size, UNWIND_SPEAKER_RELATIONS, graph.getDramaTitle(), graph.getSpeakerRows(fromScene, toScene));
+        runBatched(tx, "interacts-in", size, UNWIND_INTERACTS_IN_RELATIONS, graph.getDramaTitle(), graph.getInteractsInRows(fromScene, toScene));
     }
 
     /**
-     * Create a scene node
+     * Create character relationships with their aggregated counts and mark the drama as complete
      * @param tx an instance of neo4j driver transaction
-     * @param dramaTitle title of the drama
-     * @param scene to be inserted
+     * @param graph rows of the drama
+     * @param sourceHash content hash of the TEI
+     * @param size of the TEI
      */
-    private void createSceneNode(Transaction tx, String dramaTitle, Scene scene) {
-        tx.run(CREATE_SCENE_NODE, Values.parameters(
-                "dramaTitle", dramaTitle,
-                "sceneId", scene.getSceneId(),
-                "distinctSpeakers", scene.getDistinctSpeakers(),
-                "speakerCount", scene.getDistinctSpeakers() != null ? scene.getDistinctSpeakers().size() : 0
+    private void completeDrama(Transaction tx, DramaGraph graph, String sourceHash, SizeBucket size) {
+        runBatched(tx, "interacts-with", size, UNWIND_INTERACTS_WITH_RELATIONS, graph.getDramaTitle(), graph.getInteractionRows());
+        runBatched(tx, "dialogues-with", size, UNWIND_DIALOGUES_WITH_RELATIONS, graph.getDramaTitle(), graph.getDialogueRows());
+        runBatched(tx, "appears-with", size, UNWIND_COAPPEARANCE_RELATIONS, graph.getDramaTitle(), graph.getCoAppearanceRows());
+        run(tx, "complete", size, COMPLETE_DRAMA, Values.parameters(
+                "title", graph.getDramaTitle(),
+                "sourceHash", sourceHash,
+                "ingestStatus", INGEST_COMPLETE
         ));
+        log.info("Wrote drama {} with {} cast, {} scenes, {} interaction, {} dialogue and {} co-appearance relationships",
+                graph.getDramaTitle(), graph.getCastRows().size(), graph.getSceneRows().size(), graph.getInteractionRows().size(),
+                graph.getDialogueRows().size(), graph.getCoAppearanceRows().size());
     }
 
     /**
-     * For a scene, create a speaker relation
+     * Delete the scenes and the cast of a drama with all their relationships, keeping the drama node
      * @param tx an instance of neo4j driver transaction
      * @param dramaTitle title of the drama
-     * @param scene to be inserted
+     * @param size of the TEI
      */
-    private void createSpeakerInteractions(Transaction tx, String dramaTitle, Scene scene) {
-        if (scene.getSpeakers() == null) return;
-
-        scene.getSpeakers()
-                .forEach(speaker -> {
-                    tx.run(CREATE_SPEAKER_RELATION, Values.parameters(
-                            "dramaTitle", dramaTitle,
-                            "sceneId", scene.getSceneId(),
-                            "castId", speaker.getSpeaker(),
-                            "lineCount", speaker.getLines() != null ? speaker.getLines().size() : 0,
-                            "lines", speaker.getLines()
-                    ));
-                });
-        // Create sequential dialogue interactions
-        createDialogueSequence(tx, dramaTitle, scene);
+    private void deleteDramaGraph(Transaction tx, String dramaTitle, SizeBucket size) {
+        Value parameters = Values.parameters("dramaTitle", dramaTitle);
+        run(tx, "delete-scenes", size, DELETE_SCENES, parameters);
+        run(tx, "delete-cast", size, DELETE_CAST, parameters);
     }
 
     /**
-     * For each speaker, create bidirectional character interaction
+     * Create a drama node
      * @param tx an instance of neo4j driver transaction
-     * @param dramaTitle title of the drama
-     * @param scene to be inserted
+     * @param drama to be inserted
+     * @param source name of the play in eXist-db
+     * @param sourceHash content hash of the TEI
+     * @param size of the TEI
      */
-    private void createDialogueSequence(Transaction tx, String dramaTitle, Scene scene) {
-        if (scene.getSpeakers() == null || scene.getSpeakers().size() < 2) return;
-
-        List<Speaker> speakers = scene.getSpeakers();
-        for (int i = 0; i < speakers.size() - 1; i++) {
-            Speaker currentSpeaker = speakers.get(i);
-            Speaker nextSpeaker = speakers.get(i + 1);
-
-            // Don't create self-dialogue relationships
-            if (!currentSpeaker.getSpeaker().equals(nextSpeaker.getSpeaker())) {
-                // Create bidirectional INTERACTS_WITH relationship to represent character interaction
-                tx.run(CREATE_INTERACTS_WITH_RELATION, Values.parameters(
-                        "speaker1", currentSpeaker.getSpeaker(),
-                        "speaker2", nextSpeaker.getSpeaker(),
-                        "dramaTitle", dramaTitle,
-                        "sceneId", scene.getSceneId()
-                ));
-
-                // Also maintain the original directional DIALOGUES_WITH relationship
-                tx.run(CREATE_DIALOGUES_WITH_RELATION, Values.parameters(
-                        "speaker1", currentSpeaker.getSpeaker(),
-                        "speaker2", nextSpeaker.getSpeaker(),
-                        "dramaTitle", dramaTitle,
-                        "sceneId", scene.getSceneId()
-                ));
-            }
-        }
+    private void createDramaNode(Transaction tx, Drama drama, String source, String sourceHash, SizeBucket size) {
+        run(tx, "drama", size, CREATE_DRAMA_NODE, Values.parameters(
+                "title", drama.getTitle(),
+                "authorName", drama.getAuthorName(),
+                "date", drama.getDate(),
+                "source", source,
+                "sourceHash", sourceHash,
+                "ingestStatus", INGEST_IN_PROGRESS
+        ));
     }
 
     /**
-     * For each speaker, create co-appearance relationships
+     * Run an UNWIND statement over the rows, at most {@code batchSize} rows per statement
      * @param tx an instance of neo4j driver transaction
+     * @param kind of the statement, to tag its metrics with
+     * @param size of the TEI
+     * @param query UNWIND statement expecting {@code $dramaTitle} and {@code $rows}
      * @param dramaTitle title of the drama
-     * @param scene to be inserted
+     * @param rows parameter rows
      */
-    private void createCoAppearanceRelationships(Transaction tx, String dramaTitle, Scene scene) {
-        if (scene.getDistinctSpeakers() == null || scene.getDistinctSpeakers().size() < 2) return;
-
-        List<String> speakers = scene.getDistinctSpeakers();
-
-        // Create co-appearance relationships for all pairs of characters in the scene
-        for (int i = 0; i < speakers.size(); i++) {
-            for (int j = i + 1; j < speakers.size(); j++) {
-                String speaker1 = speakers.get(i);
-                String speaker2 = speakers.get(j);
-
-                tx.run(CREATE_COAPPEARANCE_RELATION, Values.parameters(
-                        "speaker1", speaker1,
-                        "speaker2", speaker2,
-                        "dramaTitle", dramaTitle,
-                        "sceneId", scene.getSceneId()
-                ));
-            }
+    private void runBatched(Transaction tx, String kind, SizeBucket size, String query, String dramaTitle, List<Map<String, Object>> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            run(tx, kind, size, query, Values.parameters(
+                    "dramaTitle", dramaTitle,
+                    "rows", rows.subList(from, Math.min(rows.size(), from + batchSize))
+            ));
         }
     }
+
+    /**
+     * Run a statement to completion, so that its timer covers its execution and not only sending it
+     * @param tx an instance of neo4j driver transaction
+     * @param kind of the statement, to tag its metrics with
+     * @param size of the TEI
+     * @param query Cypher statement
+     * @param parameters of the statement
+     */
+    private void run(Transaction tx, String kind, SizeBucket size, String query, Value parameters) {
+        metrics.timeStatement(kind, size, () -> tx.run(query, parameters).consume());
+    }
+
+    /**
+     * @param graph rows of the drama
+     * @return number of relationships written for the drama
+     */
+    private static long relationshipCount(DramaGraph graph) {
+        return (long) graph.getCastRows().size() + graph.getSceneRows().size() + graph.getSpeakerRows().size()
+                + graph.getInteractsInRows().size() + graph.getInteractionRows().size()
+                + graph.getDialogueRows().size() + graph.getCoAppearanceRows().size();
+    }
 }
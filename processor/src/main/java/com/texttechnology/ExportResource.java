@@ -0,0 +1,55 @@
+package com.texttechnology;
+
+import com.texttechnology.export.BulkExport;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("/export")
+public class ExportResource {
+
+    @Inject
+    BulkExport bulkExport;
+
+    /**
+     * Exports a whole corpus into CSV files for {@code neo4j-admin database import}, to seed an empty database
+     *
+     * @param directory local directory or zip/tar archive of {@code <name>.xml} plays within
+     *                  {@code processor.local.directory}, the plays in eXist-db if absent
+     * @param output    directory within {@code processor.export.directory} the CSV files are written to,
+     *                  {@code processor.export.directory} itself if absent
+     * @return REST response accepted with the started export, conflict when an export is running, or bad request when
+     * a directory leads out of its configured directory
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response export(@QueryParam("directory") String directory, @QueryParam("output") String output) {
+        try {
+            return bulkExport.start(directory, output)
+                    .map(job -> Response.accepted(job).build())
+                    .orElseGet(() -> Response.status(Response.Status.CONFLICT).entity("An export is already running").build());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * @return REST response with the running or last export, or not found when none was started
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getExport() {
+        return bulkExport.getCurrentJob()
+                .map(job -> Response.ok(job).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+}
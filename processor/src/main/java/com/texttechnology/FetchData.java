@@ -1,15 +1,20 @@
 package com.texttechnology;
 
-import com.texttechnology.extraction.DramaDataExtraction;
+import com.texttechnology.ingest.IngestionQueue;
+import com.texttechnology.ingest.LocalIngestion;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
-import restclients.ExistDbRestClient;
 
 @Slf4j
 @RequestScoped
@@ -17,25 +22,92 @@ import restclients.ExistDbRestClient;
 public class FetchData {
 
     @Inject
-    @RestClient
-    ExistDbRestClient existDbRestClient;
+    IngestionQueue ingestionQueue;
+
+    @Inject
+    LocalIngestion localIngestion;
 
     @Inject
     DramaRepository dramaRepository;
 
     /**
-     * Loads the drama inserted into the eXist-db by the scraper and process it.
+     * Queues the drama inserted into the eXist-db by the scraper for processing.
      * Triggered by scrapper when a play is inserted into eXist-db
      *
-     * @return REST response accepted
+     * @param drama Name of the play in eXist-db
+     * @param hash  content hash of the TEI; if the drama was stored from the same content it is skipped
+     * @return REST response accepted with the queued job, or the job of the drama already in flight,
+     * or service unavailable when the queue is full
      */
     @POST
     @Path("/{drama}")
-    public Response fetch(@PathParam("drama") String drama) {
-        log.info("Fetching data from Exist DB");
-        dramaRepository.insertDrama(new DramaDataExtraction(existDbRestClient.getPlayXML(drama)).extractData());
-        log.info("Inserted drama {} into Neo4J", drama);
-        return Response.accepted().build();
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response fetch(@PathParam("drama") String drama, @QueryParam("hash") String hash) {
+        return ingestionQueue.submit(drama, hash)
+                .map(job -> Response.accepted(job)
+                        .location(UriBuilder.fromResource(FetchData.class).path("jobs/{id}").build(job.getId()))
+                        .build())
+                .orElseGet(() -> Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, 30)
+                        .build());
+    }
+
+    /**
+     * Ingests all plays of a local directory or archive, for offline and reproducible reloads
+     *
+     * @param path directory or zip, tar or gzipped tar archive of {@code <name>.xml} plays on the processor host,
+     *             within {@code processor.local.directory}
+     * @return REST response accepted with the started ingestion, or conflict when one is running
+     */
+    @POST
+    @Path("/local")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response ingestLocal(@QueryParam("path") String path) {
+        if (path == null || path.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Missing path").build();
+        }
+        try {
+            return localIngestion.start(path)
+                    .map(job -> Response.accepted(job).build())
+                    .orElseGet(() -> Response.status(Response.Status.CONFLICT).entity("A local ingestion is already running").build());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * @return REST response with the running or last local ingestion, or not found when none was started
+     */
+    @GET
+    @Path("/local")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getLocalIngestion() {
+        return localIngestion.getCurrentJob()
+                .map(job -> Response.ok(job).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    /**
+     * @return REST response with the content hashes of the TEI of all stored dramas, by name of the play
+     */
+    @GET
+    @Path("/manifest")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getManifest() {
+        return Response.ok(dramaRepository.getSourceHashes()).build();
+    }
+
+    /**
+     * @param id ID of the job returned when the drama was queued
+     * @return REST response with the status of the job, or not found when it is unknown
+     */
+    @GET
+    @Path("/jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJob(@PathParam("id") String id) {
+        return ingestionQueue.getJob(id)
+                .map(job -> Response.ok(job).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
     }
 
 }
@@ -0,0 +1,53 @@
+package com.texttechnology;
+
+import com.texttechnology.lines.LineStore;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@RequestScoped
+@Path("/lines")
+public class LinesResource {
+
+    @Inject
+    DramaRepository dramaRepository;
+
+    @Inject
+    LineStore lineStore;
+
+    /**
+     * Lines spoken by a character in a scene, wherever {@code processor.graph.lines} stored them
+     *
+     * @param drama     title of the drama
+     * @param scene     ID of the scene
+     * @param character cast ID of the character, with or without the leading {@code #}
+     * @return REST response with the lines, or not found when the character does not speak in the scene
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getLines(@QueryParam("drama") String drama, @QueryParam("scene") String scene,
+                             @QueryParam("character") String character) {
+        if (drama == null || scene == null || character == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("drama, scene and character are required").build();
+        }
+        String castId = character.startsWith("#") ? character : "#" + character;
+        return dramaRepository.findSpeakerLines(drama, scene, castId)
+                .flatMap(speakerLines -> speakerLines.lines() != null
+                        ? Optional.of(speakerLines.lines())
+                        : speakerLines.lineOffset() != null
+                        ? lineStore.read(drama, speakerLines.lineOffset(), speakerLines.lineCount())
+                        : Optional.<List<String>>empty())
+                .map(lines -> Response.ok(lines).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+}
@@ -0,0 +1,51 @@
+package com.texttechnology;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.Readiness;
+import org.neo4j.driver.Driver;
+import schema.SchemaBootstrap;
+import schema.SchemaReadinessCheck;
+
+/**
+ * Bean responsible for the Neo4J schema, migrated once the application has started
+ */
+@ApplicationScoped
+public class Neo4JSchema {
+
+    @Inject
+    Driver driver;
+
+    @Inject
+    Event<SchemaReady> schemaReady;
+
+    /**
+     * @return the schema bootstrap, which fires a {@link SchemaReady} event once the schema is online
+     */
+    @Produces
+    @Singleton
+    public SchemaBootstrap createSchemaBootstrap() {
+        return new SchemaBootstrap(driver, version -> schemaReady.fire(new SchemaReady(version)));
+    }
+
+    /**
+     * @param schemaBootstrap reporting the state of the schema
+     * @return readiness check that holds the service back until the schema is online
+     */
+    @Produces
+    @Readiness
+    @ApplicationScoped
+    public HealthCheck createSchemaReadinessCheck(SchemaBootstrap schemaBootstrap) {
+        return new SchemaReadinessCheck(schemaBootstrap);
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event, SchemaBootstrap schemaBootstrap) {
+        schemaBootstrap.start();
+    }
+}
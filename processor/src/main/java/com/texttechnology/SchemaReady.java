@@ -0,0 +1,8 @@
+package com.texttechnology;
+
+/**
+ * Fired by the {@link schema.SchemaBootstrap} of the processor once all migrations are applied and their indexes are online
+ * @param version schema version of the graph
+ */
+public record SchemaReady(int version) {
+}
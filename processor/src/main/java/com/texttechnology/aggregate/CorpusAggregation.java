@@ -0,0 +1,58 @@
+package com.texttechnology.aggregate;
+
+import io.helidon.microprofile.scheduling.FixedRate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import schema.SchemaBootstrap;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the per drama and per author summaries up to date, so that comparisons across the corpus read a few
+ * summary nodes instead of scanning the graphs of all dramas.
+ * <p>
+ * Every run summarizes only the dramas ingested since the last run, {@code processor.aggregation.batch-size}
+ * per transaction, and then the authors of these dramas.
+ */
+@Slf4j
+@ApplicationScoped
+public class CorpusAggregation {
+
+    @Inject
+    SummaryRepository summaryRepository;
+
+    @Inject
+    SchemaBootstrap schemaBootstrap;
+
+    @Inject
+    @ConfigProperty(name = "processor.aggregation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "processor.aggregation.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @FixedRate(initialDelay = 1, value = 5, timeUnit = TimeUnit.MINUTES)
+    void aggregate() {
+        if (!enabled || !schemaBootstrap.isReady()) return;
+        try {
+            List<String> titles = summaryRepository.getStaleDramaTitles();
+            if (titles.isEmpty()) return;
+            Set<String> authorNames = new LinkedHashSet<>();
+            int size = Math.max(1, batchSize);
+            for (int from = 0; from < titles.size(); from += size) {
+                authorNames.addAll(summaryRepository.summarizeDramas(titles.subList(from, Math.min(titles.size(), from + size))));
+            }
+            summaryRepository.summarizeAuthors(authorNames);
+            log.info("Summarized {} dramas and {} authors", titles.size(), authorNames.size());
+        } catch (Exception e) {
+            // The dramas stay stale and are summarized on the next run
+            log.error("Corpus aggregation failed", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.texttechnology.aggregate;
+
+import com.texttechnology.DramaRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads and writes the {@code DramaSummary} and {@code AuthorSummary} nodes that corpus wide comparisons are served from
+ */
+@Slf4j
+@ApplicationScoped
+public class SummaryRepository {
+
+    private final Driver driver;
+
+    /**
+     * A summary records the ingestion it was computed from, so a drama is summarized again only once it was ingested
+     * again; dramas loaded by a bulk import carry no ingestion time and are summarized once
+     */
+    private static final String STALE_DRAMAS_QUERY = """
+            MATCH (d:Drama)
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = $ingestStatus
+            OPTIONAL MATCH (s:DramaSummary {title: d.title})
+            WITH d, s
+            WHERE s IS NULL OR coalesce(s.ingestedAt, '') <> coalesce(d.completedAt, d.createdAt, '')
+            RETURN d.title AS title
+            """;
+
+    /**
+     * Interactions are counted once per pair, by the sexes of the pair: both female, both male, or one of each
+     */
+    private static final String SUMMARIZE_DRAMAS = """
+            UNWIND $titles AS title
+            MATCH (d:Drama {title: title})
+            CALL (d) {
+                OPTIONAL MATCH (d)-[:HAS_CHARACTER]->(c:Character)
+                RETURN count(c) AS castSize
+            }
+            CALL (d) {
+                OPTIONAL MATCH (d)-[:HAS_SCENE]->(s:Scene)
+                RETURN count(s) AS sceneCount
+            }
+            CALL (d) {
+                OPTIONAL MATCH (d)-[:HAS_CHARACTER]->(c1:Character)-[r:INTERACTS_WITH]-(c2:Character)
+                WHERE elementId(c1) < elementId(c2)
+                WITH r, [toUpper(coalesce(c1.sex, '')), toUpper(coalesce(c2.sex, ''))] AS sexes
+                RETURN count(r) AS edgeCount,
+                       sum(coalesce(r.interactionCount, 0)) AS interactionCount,
+                       sum(CASE WHEN sexes = ['FEMALE', 'FEMALE'] THEN r.interactionCount ELSE 0 END) AS femaleInteractionCount,
+                       sum(CASE WHEN sexes = ['MALE', 'MALE'] THEN r.interactionCount ELSE 0 END) AS maleInteractionCount,
+                       sum(CASE WHEN 'FEMALE' IN sexes AND 'MALE' IN sexes THEN r.interactionCount ELSE 0 END) AS mixedInteractionCount
+            }
+            MERGE (s:DramaSummary {title: d.title})
+            WITH d, s, s.authorName AS previousAuthorName, castSize, sceneCount, edgeCount, interactionCount,
+                 femaleInteractionCount, maleInteractionCount, mixedInteractionCount
+            SET s.authorName = d.authorName,
+                s.date = d.date,
+                s.castSize = castSize,
+                s.sceneCount = sceneCount,
+                s.edgeCount = edgeCount,
+                s.edgeDensity = CASE WHEN castSize > 1 THEN 2.0 * edgeCount / (castSize * (castSize - 1)) ELSE 0.0 END,
+                s.averageDegree = CASE WHEN castSize > 0 THEN 2.0 * edgeCount / castSize ELSE 0.0 END,
+                s.interactionCount = interactionCount,
+                s.femaleInteractionCount = femaleInteractionCount,
+                s.maleInteractionCount = maleInteractionCount,
+                s.mixedInteractionCount = mixedInteractionCount,
+                s.ingestedAt = coalesce(d.completedAt, d.createdAt),
+                s.updatedAt = datetime()
+            RETURN previousAuthorName, d.authorName AS authorName
+            """;
+
+    /**
+     * Authors are summarized from the summaries of their dramas; an author left without dramas loses its summary
+     */
+    private static final String SUMMARIZE_AUTHORS = """
+            UNWIND $authorNames AS authorName
+            OPTIONAL MATCH (s:DramaSummary {authorName: authorName})
+            WITH authorName,
+                 count(s) AS dramaCount,
+                 avg(s.castSize) AS averageCastSize,
+                 avg(s.sceneCount) AS averageSceneCount,
+                 avg(s.edgeDensity) AS averageEdgeDensity,
+                 avg(s.averageDegree) AS averageDegree,
+                 sum(s.interactionCount) AS interactionCount,
+                 sum(s.femaleInteractionCount) AS femaleInteractionCount,
+                 sum(s.maleInteractionCount) AS maleInteractionCount,
+                 sum(s.mixedInteractionCount) AS mixedInteractionCount
+            MERGE (a:AuthorSummary {authorName: authorName})
+            SET a.dramaCount = dramaCount,
+                a.averageCastSize = averageCastSize,
+                a.averageSceneCount = averageSceneCount,
+                a.averageEdgeDensity = averageEdgeDensity,
+                a.averageDegree = averageDegree,
+                a.interactionCount = interactionCount,
+                a.femaleInteractionCount = femaleInteractionCount,
+                a.maleInteractionCount = maleInteractionCount,
+                a.mixedInteractionCount = mixedInteractionCount,
+                a.updatedAt = datetime()
+            WITH a
+            WHERE a.dramaCount = 0
+            DELETE a
+            """;
+
+    @Inject
+    public SummaryRepository(Driver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * @return titles of the complete dramas ingested since they were last summarized, or never summarized
+     */
+    public List<String> getStaleDramaTitles() {
+        try (Session session = driver.session()) {
+            return session.run(STALE_DRAMAS_QUERY, Values.parameters("ingestStatus", DramaRepository.INGEST_COMPLETE))
+                    .list(record -> record.get("title").asString());
+        }
+    }
+
+    /**
+     * Write the summaries of the dramas in a single transaction
+     * @param titles titles of the dramas
+     * @return names of the authors whose dramas changed, including the former authors of the dramas
+     */
+    public Set<String> summarizeDramas(List<String> titles) {
+        try (Session session = driver.session()) {
+            return session.writeTransaction(tx -> {
+                Set<String> authorNames = new LinkedHashSet<>();
+                tx.run(SUMMARIZE_DRAMAS, Values.parameters("titles", titles)).forEachRemaining(record -> {
+                    if (!record.get("previousAuthorName").isNull()) authorNames.add(record.get("previousAuthorName").asString());
+                    if (!record.get("authorName").isNull()) authorNames.add(record.get("authorName").asString());
+                });
+                return authorNames;
+            });
+        }
+    }
+
+    /**
+     * Write the summaries of the authors from the summaries of their dramas
+     * @param authorNames names of the authors
+     */
+    public void summarizeAuthors(Set<String> authorNames) {
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> {
+                tx.run(SUMMARIZE_AUTHORS, Values.parameters("authorNames", List.copyOf(authorNames)));
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.texttechnology.cache;
+
+import com.texttechnology.data.drama.Drama;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of extracted dramas in the {@link DramaCodec} encoding, keyed by the content hash of their TEI,
+ * so that a drama whose TEI is unchanged is written again without fetching and extracting it.
+ * <p>
+ * Every failure is logged and treated as a miss. When the files exceed {@code processor.cache.max-size} MiB,
+ * the least recently used are deleted.
+ */
+@Slf4j
+@ApplicationScoped
+public class DramaCache {
+
+    private static final String SUFFIX = ".drama";
+    private static final Pattern HASH = Pattern.compile("[0-9a-fA-F]{16,128}");
+
+    private final Path directory;
+    private final long maxBytes;
+
+    @Inject
+    public DramaCache(@ConfigProperty(name = "processor.cache.enabled", defaultValue = "true") boolean enabled,
+                      @ConfigProperty(name = "processor.cache.directory", defaultValue = "cache") String directory,
+                      @ConfigProperty(name = "processor.cache.max-size", defaultValue = "1024") long maxSize) {
+        this.directory = enabled ? Path.of(directory).toAbsolutePath() : null;
+        this.maxBytes = maxSize * 1024 * 1024;
+    }
+
+    /**
+     * @param sourceHash content hash of the TEI, may be null
+     * @return the drama extracted from the TEI, with the size of the TEI, empty if it is not cached
+     */
+    public Optional<DramaCodec.Encoded> get(String sourceHash) {
+        Path file = file(sourceHash);
+        if (file == null) return Optional.empty();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            DramaCodec.Encoded encoded = DramaCodec.decode(in);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(encoded);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("Discarding unreadable cached drama {}: {}", file.getFileName(), e.getMessage());
+            delete(file);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param sourceHash  content hash of the TEI, nothing is cached if null
+     * @param drama       drama extracted from the TEI
+     * @param sourceBytes size of the TEI in UTF-8 bytes
+     */
+    public void put(String sourceHash, Drama drama, long sourceBytes) {
+        Path file = file(sourceHash);
+        if (file == null) return;
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, sourceHash, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+                DramaCodec.encode(drama, sourceBytes, out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Cached drama {} as {}", drama.getTitle(), file.getFileName());
+            prune();
+        } catch (Exception e) {
+            log.warn("Could not cache drama {}: {}", drama.getTitle(), e.getMessage());
+            if (temporary != null) delete(temporary);
+        }
+    }
+
+    private Path file(String sourceHash) {
+        if (directory == null || sourceHash == null || !HASH.matcher(sourceHash).matches()) return null;
+        return directory.resolve(sourceHash.toLowerCase() + SUFFIX);
+    }
+
+    private synchronized void prune() throws IOException {
+        List<CachedFile> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .map(CachedFile::of)
+                    .flatMap(Optional::stream)
+                    .sorted(Comparator.comparing(CachedFile::lastUsed))
+                    .toList();
+        }
+        long total = files.stream().mapToLong(CachedFile::bytes).sum();
+        for (CachedFile file : files) {
+            if (total <= maxBytes) break;
+            delete(file.path());
+            total -= file.bytes();
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record CachedFile(Path path, long bytes, FileTime lastUsed) {
+
+        static Optional<CachedFile> of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return Optional.of(new CachedFile(path, attributes.size(), attributes.lastModifiedTime()));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.texttechnology.cache;
+
+import com.texttechnology.data.drama.Cast;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.data.drama.Scene;
+import com.texttechnology.data.drama.Speaker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of an extracted {@link Drama}.
+ * <p>
+ * Speaker and cast ids are interned into a table written once and referred to by index, lists of lines
+ * shared by several speeches of a scene are written once per scene, and all counts and indexes are varints.
+ * Decoding yields a drama equal to the encoded one, with lists of lines shared the same way.
+ */
+public final class DramaCodec {
+
+    private static final int MAGIC = 0x44524d41;
+    /**
+     * Increment on any change of the format or of the extracted data, which invalidates all cached dramas
+     */
+    static final int VERSION = 1;
+
+    private DramaCodec() {
+    }
+
+    /**
+     * A drama with the size of the TEI it was extracted from
+     */
+    public record Encoded(Drama drama, long sourceBytes) {
+    }
+
+    public static void encode(Drama drama, long sourceBytes, OutputStream out) throws IOException {
+        Writer writer = new Writer(new DataOutputStream(out));
+        writer.out.writeInt(MAGIC);
+        writer.out.writeByte(VERSION);
+        writer.varLong(sourceBytes);
+        writer.string(drama.getTitle());
+        writer.string(drama.getAuthorName());
+        writer.string(drama.getDate());
+
+        List<Cast> castList = orEmpty(drama.getCastList());
+        List<Scene> scenes = orEmpty(drama.getScenes());
+        castList.forEach(cast -> writer.intern(cast.getId()));
+        scenes.forEach(scene -> {
+            orEmpty(scene.getDistinctSpeakers()).forEach(writer::intern);
+            orEmpty(scene.getSpeakers()).forEach(speaker -> writer.intern(speaker.getSpeaker()));
+        });
+        writer.varInt(writer.ids.size());
+        for (String id : writer.ids) {
+            writer.string(id);
+        }
+
+        writer.varInt(castList.size());
+        for (Cast cast : castList) {
+            writer.id(cast.getId());
+            writer.string(cast.getName());
+            writer.string(cast.getSex());
+        }
+        writer.varInt(scenes.size());
+        for (Scene scene : scenes) {
+            writer.scene(scene);
+        }
+        writer.out.flush();
+    }
+
+    public static Encoded decode(InputStream in) throws IOException {
+        Reader reader = new Reader(new DataInputStream(in));
+        if (reader.in.readInt() != MAGIC) throw new IOException("Not an encoded drama");
+        int version = reader.in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported encoded drama version " + version);
+        long sourceBytes = reader.varLong();
+        Drama.DramaBuilder drama = Drama.builder()
+                .title(reader.string())
+                .authorName(reader.string())
+                .date(reader.string());
+
+        String[] ids = new String[reader.varInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = reader.string();
+        }
+        reader.ids = ids;
+
+        int castCount = reader.varInt();
+        List<Cast> castList = new ArrayList<>(castCount);
+        for (int i = 0; i < castCount; i++) {
+            castList.add(Cast.builder().id(reader.id()).name(reader.string()).sex(reader.string()).build());
+        }
+        int sceneCount = reader.varInt();
+        List<Scene> scenes = new ArrayList<>(sceneCount);
+        for (int i = 0; i < sceneCount; i++) {
+            scenes.add(reader.scene());
+        }
+        return new Encoded(drama.castList(castList).scenes(scenes).build(), sourceBytes);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private static final class Writer {
+
+        private final DataOutputStream out;
+        private final List<String> ids = new ArrayList<>();
+        private final Map<String, Integer> idIndexes = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void intern(String id) {
+            if (id != null && !idIndexes.containsKey(id)) {
+                idIndexes.put(id, ids.size());
+                ids.add(id);
+            }
+        }
+
+        /**
+         * Index of an interned id plus one, 0 for null
+         */
+        void id(String id) throws IOException {
+            varInt(id == null ? 0 : idIndexes.get(id) + 1);
+        }
+
+        /**
+         * Line lists of the scene by identity, then the speakers referring to them by index plus one, 0 for null
+         */
+        void scene(Scene scene) throws IOException {
+            string(scene.getSceneId());
+            List<String> distinctSpeakers = scene.getDistinctSpeakers();
+            varInt(distinctSpeakers == null ? 0 : distinctSpeakers.size() + 1);
+            for (String speaker : orEmpty(distinctSpeakers)) {
+                id(speaker);
+            }
+
+            List<Speaker> speakers = scene.getSpeakers();
+            Map<List<String>, Integer> lineLists = new IdentityHashMap<>();
+            List<List<String>> distinctLines = new ArrayList<>();
+            for (Speaker speaker : orEmpty(speakers)) {
+                if (speaker.getLines() != null && lineLists.putIfAbsent(speaker.getLines(), distinctLines.size()) == null) {
+                    distinctLines.add(speaker.getLines());
+                }
+            }
+            varInt(distinctLines.size());
+            for (List<String> lines : distinctLines) {
+                varInt(lines.size());
+                for (String line : lines) {
+                    string(line);
+                }
+            }
+            varInt(speakers == null ? 0 : speakers.size() + 1);
+            for (Speaker speaker : orEmpty(speakers)) {
+                id(speaker.getSpeaker());
+                varInt(speaker.getLines() == null ? 0 : lineLists.get(speaker.getLines()) + 1);
+            }
+        }
+
+        /**
+         * UTF-8 length plus one, 0 for null, followed by the UTF-8 bytes
+         */
+        void string(String value) throws IOException {
+            if (value == null) {
+                varInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varInt(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        void varInt(int value) throws IOException {
+            varLong(value);
+        }
+
+        void varLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    private static final class Reader {
+
+        private final DataInputStream in;
+        private String[] ids;
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        String id() throws IOException {
+            int index = varInt();
+            return index == 0 ? null : ids[index - 1];
+        }
+
+        Scene scene() throws IOException {
+            Scene.SceneBuilder scene = Scene.builder().sceneId(string());
+            int distinctSpeakerCount = varInt();
+            if (distinctSpeakerCount > 0) {
+                List<String> distinctSpeakers = new ArrayList<>(distinctSpeakerCount - 1);
+                for (int i = 1; i < distinctSpeakerCount; i++) {
+                    distinctSpeakers.add(id());
+                }
+                scene.distinctSpeakers(distinctSpeakers);
+            }
+
+            List<List<String>> lineLists = new ArrayList<>();
+            int lineListCount = varInt();
+            for (int i = 0; i < lineListCount; i++) {
+                int lineCount = varInt();
+                List<String> lines = new ArrayList<>(lineCount);
+                for (int j = 0; j < lineCount; j++) {
+                    lines.add(string());
+                }
+                lineLists.add(lines);
+            }
+            int speakerCount = varInt();
+            if (speakerCount > 0) {
+                List<Speaker> speakers = new ArrayList<>(speakerCount - 1);
+                for (int i = 1; i < speakerCount; i++) {
+                    String speaker = id();
+                    int lines = varInt();
+                    speakers.add(Speaker.builder().speaker(speaker).lines(lines == 0 ? null : lineLists.get(lines - 1)).build());
+                }
+                scene.speakers(speakers);
+            }
+            return scene.build();
+        }
+
+        String string() throws IOException {
+            int length = varInt();
+            if (length == 0) return null;
+            byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int varInt() throws IOException {
+            return Math.toIntExact(varLong());
+        }
+
+        long varLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.texttechnology.export;
+
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.extraction.ExtractionMode;
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.graph.LineStorage;
+import com.texttechnology.lines.LineStore;
+import com.texttechnology.source.ExistPlaySource;
+import com.texttechnology.source.LocalPaths;
+import com.texttechnology.source.PlaySource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import restclients.ExistDbRestClient;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Extracts a whole corpus into node and relationship CSV files for {@code neo4j-admin database import},
+ * which seeds an empty database far faster than transactional writes.
+ * <p>
+ * Plays are extracted and written one at a time, so memory is bounded by the largest play; only one export runs at a time.
+ */
+@Slf4j
+@ApplicationScoped
+public class BulkExport {
+
+    @Inject
+    @RestClient
+    ExistDbRestClient existDbRestClient;
+
+    @Inject
+    @ConfigProperty(name = "processor.extraction.mode", defaultValue = "stax")
+    String extractionMode;
+
+    @Inject
+    @ConfigProperty(name = "processor.export.directory", defaultValue = "import")
+    String outputRoot;
+
+    @Inject
+    @ConfigProperty(name = "processor.local.directory", defaultValue = "plays")
+    String inputRoot;
+
+    @Inject
+    @ConfigProperty(name = "processor.graph.lines", defaultValue = "graph")
+    String lineStorage;
+
+    @Inject
+    LineStore lineStore;
+
+    private final AtomicReference<ExportJob> currentJob = new AtomicReference<>();
+
+    /**
+     * Start exporting in the background
+     *
+     * @param inputDirectory  local directory or zip/tar archive of {@code <name>.xml} plays within
+     *                        {@code processor.local.directory}, null to export the plays in eXist-db
+     * @param outputDirectory directory the CSV files are written to within {@code processor.export.directory},
+     *                        null for that directory itself
+     * @return the started export, empty if another export is running
+     * @throws IllegalArgumentException if a directory leads out of its configured directory
+     */
+    public Optional<ExportJob> start(String inputDirectory, String outputDirectory) {
+        Path output = LocalPaths.resolve(outputRoot, outputDirectory);
+        PlaySource source = inputDirectory != null
+                ? PlaySource.open(LocalPaths.resolve(inputRoot, inputDirectory))
+                : new ExistPlaySource(existDbRestClient);
+        ExportJob job = new ExportJob(inputDirectory != null ? inputDirectory : "exist-db", output.toString());
+        ExportJob running = currentJob.get();
+        if ((running != null && running.getFinishedAt() == null) || !currentJob.compareAndSet(running, job)) {
+            closeQuietly(source);
+            return Optional.empty();
+        }
+        Thread.ofVirtual().name("bulk-export").start(() -> export(job, source, output));
+        return Optional.of(job);
+    }
+
+    /**
+     * @return the running or last export
+     */
+    public Optional<ExportJob> getCurrentJob() {
+        return Optional.ofNullable(currentJob.get());
+    }
+
+    private void export(ExportJob job, PlaySource source, Path output) {
+        try (source) {
+            List<String> names = source.names();
+            job.start(names.size());
+            log.info("Exporting {} plays to {}", names.size(), output);
+            ExtractionMode mode = ExtractionMode.of(extractionMode);
+            LineStorage lines = LineStorage.of(lineStorage);
+            Map<String, Long> rows;
+            try (ImportFiles files = new ImportFiles(output, lines)) {
+                source.forEachPlay((name, playXML) -> {
+                    try {
+                        Drama drama = mode.extract(PlaySource.stream(playXML));
+                        DramaGraph graph = DramaGraph.of(drama, lines);
+                        if (files.write(drama, graph, name, PlaySource.contentHash(playXML))) {
+                            if (lines == LineStorage.EXTERNAL) lineStore.write(graph);
+                            job.exported();
+                        } else {
+                            log.warn("Skipping play {}, a drama titled {} was already exported", name, drama.getTitle());
+                            job.duplicate();
+                        }
+                    } catch (Exception e) {
+                        log.error("Error exporting play {}", name, e);
+                        job.failed();
+                    }
+                });
+                rows = files.getRowCounts();
+            }
+            job.complete(rows);
+            log.info("Exported {} plays to {}, run {} there to import them", job.getExported(), output, ImportFiles.IMPORT_SCRIPT);
+        } catch (Exception e) {
+            log.error("Error exporting to {}", output, e);
+            job.fail(e);
+        }
+    }
+
+    private static void closeQuietly(PlaySource source) {
+        try {
+            source.close();
+        } catch (Exception e) {
+            log.warn("Could not close play source: {}", e.getMessage());
+        }
+    }
+}
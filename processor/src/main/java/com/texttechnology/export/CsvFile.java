@@ -0,0 +1,102 @@
+package com.texttechnology.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A CSV file in the format read by {@code neo4j-admin database import}.
+ * <p>
+ * Strings are always quoted, so that empty strings are kept; null values are left empty, so that the property is not set.
+ * Array elements are separated by {@link #ARRAY_DELIMITER}, which is removed from the values themselves.
+ */
+class CsvFile implements Closeable {
+
+    /**
+     * Unit separator, passed to the import as {@code --array-delimiter=U+001F}
+     */
+    static final char ARRAY_DELIMITER = '\u001F';
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private long rows;
+
+    CsvFile(Path path, String... header) {
+        this.path = path;
+        try {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            writer.write(String.join(",", header));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param values of the columns, strings, numbers or lists of strings
+     */
+    void row(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            append(line, values[i]);
+        }
+        try {
+            writer.write(line.toString());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rows++;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    private static void append(StringBuilder line, Object value) {
+        switch (value) {
+            case null -> {
+            }
+            case Number number -> line.append(number);
+            case List<?> list -> {
+                line.append('"');
+                for (int i = 0; i < list.size(); i++) {
+                    if (i > 0) line.append(ARRAY_DELIMITER);
+                    appendEscaped(line, String.valueOf(list.get(i)));
+                }
+                line.append('"');
+            }
+            default -> {
+                line.append('"');
+                appendEscaped(line, value.toString());
+                line.append('"');
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else if (c != ARRAY_DELIMITER) {
+                line.append(c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
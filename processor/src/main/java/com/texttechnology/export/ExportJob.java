@@ -0,0 +1,92 @@
+package com.texttechnology.export;
+
+import com.texttechnology.ingest.JobStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the export of a corpus into CSV files for {@code neo4j-admin database import}
+ */
+@Getter
+@ToString
+public class ExportJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String source;
+    private final String outputDirectory;
+    private final Instant submittedAt = Instant.now();
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile int total;
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger exported = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger duplicates = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile Map<String, Long> rows = Map.of();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    ExportJob(String source, String outputDirectory) {
+        this.source = source;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * @return number of plays exported so far
+     */
+    public int getExported() {
+        return exported.get();
+    }
+
+    /**
+     * @return number of plays skipped so far because a drama with the same title was already exported
+     */
+    public int getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return number of plays that could not be exported so far
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    void start(int total) {
+        this.total = total;
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    void complete(Map<String, Long> rows) {
+        this.rows = rows;
+        finishedAt = Instant.now();
+        status = JobStatus.COMPLETED;
+    }
+
+    void exported() {
+        exported.incrementAndGet();
+    }
+
+    void duplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void fail(Exception e) {
+        finishedAt = Instant.now();
+        error = e.toString();
+        status = JobStatus.FAILED;
+    }
+}
@@ -0,0 +1,218 @@
+package com.texttechnology.export;
+
+import com.texttechnology.DramaRepository;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.graph.LineStorage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Node and relationship CSV files of a whole corpus, written one drama at a time.
+ * <p>
+ * The graph has the same shape and properties as the one written by {@link DramaRepository}. Only the titles of the
+ * dramas written so far are kept in memory, to skip dramas whose title was already exported; within a drama, rows
+ * referring to characters missing from the cast are dropped, as the repository's MATCH would.
+ */
+class ImportFiles implements Closeable {
+
+    static final String IMPORT_SCRIPT = "import.sh";
+
+    /**
+     * Record separator, which neither titles nor XML IDs contain
+     */
+    private static final char ID_SEPARATOR = '\u001E';
+
+    private final Path directory;
+    private final CsvFile dramas;
+    private final CsvFile characters;
+    private final CsvFile scenes;
+    private final CsvFile hasCharacter;
+    private final CsvFile hasScene;
+    private final CsvFile speaksIn;
+    private final CsvFile interactsIn;
+    private final CsvFile interactsWith;
+    private final CsvFile dialoguesWith;
+    private final CsvFile appearsWith;
+    private final List<CsvFile> nodeFiles;
+    private final List<CsvFile> relationshipFiles;
+    private final Set<String> titles = new HashSet<>();
+    private final LineStorage lineStorage;
+
+    /**
+     * @param directory   the files are written to
+     * @param lineStorage the lines of speakers are written to {@code speaks_in.csv} for {@link LineStorage#GRAPH},
+     *                    only their offsets for {@link LineStorage#EXTERNAL}
+     */
+    ImportFiles(Path directory, LineStorage lineStorage) {
+        this.directory = directory;
+        this.lineStorage = lineStorage;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dramas = new CsvFile(directory.resolve("dramas.csv"),
+                "title:ID(Drama)", "authorName", "date", "source", "sourceHash", "ingestStatus");
+        characters = new CsvFile(directory.resolve("characters.csv"),
+                ":ID(Character)", "dramaTitle", "castId", "name", "sex");
+        scenes = new CsvFile(directory.resolve("scenes.csv"),
+                ":ID(Scene)", "dramaTitle", "sceneId", "distinctSpeakers:string[]", "speakerCount:int", "ordinal:int");
+        hasCharacter = new CsvFile(directory.resolve("has_character.csv"), ":START_ID(Drama)", ":END_ID(Character)");
+        hasScene = new CsvFile(directory.resolve("has_scene.csv"), ":START_ID(Drama)", ":END_ID(Scene)");
+        speaksIn = new CsvFile(directory.resolve("speaks_in.csv"),
+                ":START_ID(Character)", ":END_ID(Scene)", "lineCount:int",
+                lineStorage == LineStorage.GRAPH ? "lines:string[]" : "lineOffset:long");
+        interactsIn = new CsvFile(directory.resolve("interacts_in.csv"), ":START_ID(Character)", ":END_ID(Scene)");
+        interactsWith = new CsvFile(directory.resolve("interacts_with.csv"),
+                ":START_ID(Character)", ":END_ID(Character)", "interactionCount:int", "lastScene",
+                "sceneIndex:int[]", "cumulativeCount:int[]", "dramaTitle");
+        dialoguesWith = new CsvFile(directory.resolve("dialogues_with.csv"),
+                ":START_ID(Character)", ":END_ID(Character)", "sceneCount:int");
+        appearsWith = new CsvFile(directory.resolve("appears_with.csv"),
+                ":START_ID(Character)", ":END_ID(Character)", "coAppearanceCount:int");
+        nodeFiles = List.of(dramas, characters, scenes);
+        relationshipFiles = List.of(hasCharacter, hasScene, speaksIn, interactsIn, interactsWith, dialoguesWith, appearsWith);
+    }
+
+    /**
+     * @param drama      extracted drama
+     * @param graph      rows of the drama, built with the line storage of the files
+     * @param source     name of the play the drama was extracted from
+     * @param sourceHash content hash of the TEI of the play
+     * @return false if a drama with the same title was already written
+     */
+    boolean write(Drama drama, DramaGraph graph, String source, String sourceHash) {
+        String title = graph.getDramaTitle();
+        if (!titles.add(title)) return false;
+
+        dramas.row(title, drama.getAuthorName(), drama.getDate(), source, sourceHash, DramaRepository.INGEST_COMPLETE);
+
+        Set<String> cast = new HashSet<>();
+        for (Map<String, Object> row : graph.getCastRows()) {
+            String castId = (String) row.get("castId");
+            if (!cast.add(castId)) continue;
+            characters.row(characterId(title, castId), title, castId, row.get("name"), row.get("sex"));
+            hasCharacter.row(title, characterId(title, castId));
+        }
+
+        Set<String> sceneIds = new HashSet<>();
+        for (Map<String, Object> row : graph.getSceneRows()) {
+            String sceneId = (String) row.get("sceneId");
+            if (!sceneIds.add(sceneId)) continue;
+            scenes.row(sceneId(title, sceneId), title, sceneId, row.get("distinctSpeakers"), row.get("speakerCount"), row.get("ordinal"));
+            hasScene.row(title, sceneId(title, sceneId));
+        }
+
+        writeSceneRelationships(speaksIn, graph.getSpeakerRows(), title, cast, row -> new Object[]{row.get("lineCount"), row.get(lineStorage == LineStorage.GRAPH ? "lines" : "lineOffset")});
+        writeSceneRelationships(interactsIn, graph.getInteractsInRows(), title, cast, row -> new Object[0]);
+        writePairRelationships(interactsWith, graph.getInteractionRows(), title, cast, row -> new Object[]{row.get("count"), row.get("lastScene"),
+                row.get("sceneIndex"), row.get("cumulativeCount"), title});
+        writePairRelationships(dialoguesWith, graph.getDialogueRows(), title, cast, row -> new Object[]{row.get("count")});
+        writePairRelationships(appearsWith, graph.getCoAppearanceRows(), title, cast, row -> new Object[]{row.get("count")});
+        return true;
+    }
+
+    /**
+     * @return number of rows written per file name
+     */
+    Map<String, Long> getRowCounts() {
+        List<CsvFile> files = new ArrayList<>(nodeFiles);
+        files.addAll(relationshipFiles);
+        return files.stream().collect(Collectors.toMap(file -> file.getPath().getFileName().toString(), CsvFile::getRows,
+                (a, b) -> a, TreeMap::new));
+    }
+
+    private void writeSceneRelationships(CsvFile file, List<Map<String, Object>> rows, String title, Set<String> cast,
+                                         Function<Map<String, Object>, Object[]> properties) {
+        Set<String> written = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            String castId = (String) row.get("castId");
+            String sceneId = (String) row.get("sceneId");
+            if (!cast.contains(castId) || !written.add(castId + ID_SEPARATOR + sceneId)) continue;
+            file.row(concat(characterId(title, castId), sceneId(title, sceneId), properties.apply(row)));
+        }
+    }
+
+    private void writePairRelationships(CsvFile file, List<Map<String, Object>> rows, String title, Set<String> cast,
+                                        Function<Map<String, Object>, Object[]> properties) {
+        for (Map<String, Object> row : rows) {
+            String speaker1 = (String) row.get("speaker1");
+            String speaker2 = (String) row.get("speaker2");
+            if (!cast.contains(speaker1) || !cast.contains(speaker2)) continue;
+            file.row(concat(characterId(title, speaker1), characterId(title, speaker2), properties.apply(row)));
+        }
+    }
+
+    private static Object[] concat(String start, String end, Object[] properties) {
+        Object[] values = new Object[properties.length + 2];
+        values[0] = start;
+        values[1] = end;
+        System.arraycopy(properties, 0, values, 2, properties.length);
+        return values;
+    }
+
+    /**
+     * Characters and scenes are only unique within their drama, so their import IDs include its title
+     */
+    private static String characterId(String title, String castId) {
+        return title + ID_SEPARATOR + castId;
+    }
+
+    private static String sceneId(String title, String sceneId) {
+        return title + ID_SEPARATOR + sceneId;
+    }
+
+    /**
+     * Write the {@code neo4j-admin} command importing the files of this directory into an empty database
+     */
+    private void writeImportScript() throws IOException {
+        StringBuilder script = new StringBuilder("""
+                #!/bin/sh
+                # Imports the exported corpus into an empty, stopped database, run from this directory.
+                # The constraints and indexes are created by the services when they start.
+                neo4j-admin database import full \\
+                  --overwrite-destination=true \\
+                  --array-delimiter=U+001F \\
+                  --multiline-fields=true \\
+                """);
+        nodeFiles.forEach(file -> script.append("  --nodes=").append(label(file)).append('=')
+                .append(file.getPath().getFileName()).append(" \\\n"));
+        relationshipFiles.forEach(file -> script.append("  --relationships=").append(type(file)).append('=')
+                .append(file.getPath().getFileName()).append(" \\\n"));
+        script.append("  ${1:-neo4j}\n");
+        Files.writeString(directory.resolve(IMPORT_SCRIPT), script, StandardCharsets.UTF_8);
+    }
+
+    private String label(CsvFile file) {
+        if (file == dramas) return "Drama";
+        if (file == characters) return "Character";
+        return "Scene";
+    }
+
+    private static String type(CsvFile file) {
+        String name = file.getPath().getFileName().toString();
+        return name.substring(0, name.length() - ".csv".length()).toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (CsvFile file : nodeFiles) file.close();
+        for (CsvFile file : relationshipFiles) file.close();
+        writeImportScript();
+    }
+}
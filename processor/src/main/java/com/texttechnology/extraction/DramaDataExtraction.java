@@ -8,6 +8,7 @@ import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
 import java.io.StringReader;
 
 import static com.texttechnology.extraction.ExtractionFunctions.*;
@@ -18,18 +19,25 @@ public class DramaDataExtraction {
     private final DramaBuilder drama = Drama.builder();
     private final Document playDoc;
 
-    @SneakyThrows
     public DramaDataExtraction(String playXML) {
+        this(new InputSource(new StringReader(playXML)));
+    }
+
+    public DramaDataExtraction(InputStream playXML) {
+        this(new InputSource(playXML));
+    }
+
+    @SneakyThrows
+    private DramaDataExtraction(InputSource playXML) {
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         dbf.setNamespaceAware(true);
-        playDoc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(playXML)));
+        playDoc = dbf.newDocumentBuilder().parse(playXML);
     }
 
     /**
      * @return A POJO containing the extracted data for the drama
      */
     public Drama extractData() {
-        getScenes(playDoc);
         return drama.title(getTitle.apply(playDoc))
                 .authorName(getAuthor.apply(playDoc))
                 .date(getDate.apply(playDoc))
@@ -12,12 +12,17 @@ import org.w3c.dom.NodeList;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathVariableResolver;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.IntStream;
@@ -25,35 +30,39 @@ import java.util.stream.IntStream;
 @Slf4j
 public class ExtractionFunctions {
 
-    private static final XPath xpath = XPathFactory.newInstance().newXPath();
-
-    static {
-        xpath.setNamespaceContext(new NamespaceContext() {
-            @Override
-            public String getNamespaceURI(String prefix) {
-                return switch (prefix) {
-                    case "tei" -> "http://www.tei-c.org/ns/1.0";
-                    case "xml" -> "http://www.w3.org/XML/1998/namespace";
-                    default -> XMLConstants.NULL_NS_URI;
-                };
-            }
+    private static final NamespaceContext TEI_NAMESPACES = new NamespaceContext() {
+        @Override
+        public String getNamespaceURI(String prefix) {
+            return switch (prefix) {
+                case "tei" -> "http://www.tei-c.org/ns/1.0";
+                case "xml" -> "http://www.w3.org/XML/1998/namespace";
+                default -> XMLConstants.NULL_NS_URI;
+            };
+        }
 
-            @Override
-            public String getPrefix(String uri) {
-                return null;
-            }
+        @Override
+        public String getPrefix(String uri) {
+            return null;
+        }
 
-            @Override
-            public Iterator<String> getPrefixes(String uri) {
-                return null;
-            }
-        });
-    }
+        @Override
+        public Iterator<String> getPrefixes(String uri) {
+            return null;
+        }
+    };
+
+    private static final QName SCENE_ID = new QName("sceneId");
+    private static final QName SPEAKER_ID = new QName("speakerId");
+
+    /**
+     * {@link XPath} and compiled expressions are not thread-safe, so every thread compiles its own set once
+     */
+    private static final ThreadLocal<Expressions> expressions = ThreadLocal.withInitial(Expressions::new);
 
     /**
      * Evaluate the xpath and get the title of the drama
      */
-    public static Function<Document, String> getTitle = doc -> Try.of(() -> xpath.evaluate("//tei:title", doc, XPathConstants.STRING))
+    public static Function<Document, String> getTitle = doc -> Try.of(() -> expressions.get().title.evaluate(doc, XPathConstants.STRING))
             .map(String::valueOf)
             .peek(title -> log.debug("Title: {}", title))
             .getOrNull();
@@ -62,7 +71,7 @@ public class ExtractionFunctions {
     /**
      * Evaluate the xpath to get the published data of the drama
      */
-    public static Function<Document, String> getDate = doc -> Try.of(() -> xpath.evaluate("//tei:event/@when", doc, XPathConstants.STRING))
+    public static Function<Document, String> getDate = doc -> Try.of(() -> expressions.get().date.evaluate(doc, XPathConstants.STRING))
             .map(String::valueOf)
             .peek(date -> log.debug("Date: {}", date))
             .getOrNull();
@@ -72,11 +81,12 @@ public class ExtractionFunctions {
      * Evaluate xpath to get the author details of the drama
      */
     public static Function<Document, String> getAuthor = doc -> Try.of(() -> {
-                String foreName = xpath.evaluate("//tei:author/tei:forename", doc, XPathConstants.STRING).toString();
-                String surname = xpath.evaluate("//tei:author/tei:surname", doc, XPathConstants.STRING).toString();
+                Expressions xpath = expressions.get();
+                String foreName = xpath.foreName.evaluate(doc, XPathConstants.STRING).toString();
+                String surname = xpath.surname.evaluate(doc, XPathConstants.STRING).toString();
                 return Optional.of(foreName.strip() + " " + surname.strip())
                         .filter(_ -> !(foreName.isBlank() && surname.isBlank()))
-                        .orElseGet(xpath.evaluate("//tei:author/tei:persName", doc, XPathConstants.STRING)::toString);
+                        .orElseGet(xpath.persName.evaluate(doc, XPathConstants.STRING)::toString);
             })
             .peek(author -> log.debug("Author: {}", author))
             .getOrNull();
@@ -86,13 +96,13 @@ public class ExtractionFunctions {
      * For each cast; their ID, name and gener are extracted
      */
     public static Function<Document, List<Cast>> getCast = doc -> Try.of(() -> {
-                NodeList persons = (NodeList) xpath.evaluate("//tei:listPerson/tei:person", doc, XPathConstants.NODESET);
+                NodeList persons = (NodeList) expressions.get().persons.evaluate(doc, XPathConstants.NODESET);
                 return IntStream.range(0, persons.getLength())
                         .mapToObj(persons::item)
                         .map(Element.class::cast)
                         .map(cast -> Cast.builder()
                                 .id("#" + cast.getAttribute("xml:id"))
-                                .name(cast.getElementsByTagName("persName").item(0).getTextContent())
+                                .name(persName(cast))
                                 .sex(cast.getAttribute("sex"))
                                 .build())
                         .toList();
@@ -100,6 +110,15 @@ public class ExtractionFunctions {
             .peek(castList -> log.debug("Cast List: {}", castList))
             .getOrNull();
 
+    /**
+     * A cast member without a persName keeps its other fields, like in {@link StreamingDramaDataExtraction}
+     * @return text of the first persName of the cast member, null if it has none
+     */
+    private static String persName(Element cast) {
+        NodeList names = cast.getElementsByTagName("persName");
+        return names.getLength() > 0 ? names.item(0).getTextContent() : null;
+    }
+
     /**
      * Function to get the scenes of the play
      * Each scene object will contain the speaker details along with the lines spoken by each speaker
@@ -110,29 +129,89 @@ public class ExtractionFunctions {
      */
     @SneakyThrows
     public static List<Scene> getScenes(Document doc) {
-        NodeList divList = (NodeList) xpath.evaluate("//tei:body/tei:div", doc, XPathConstants.NODESET);
+        Expressions xpath = expressions.get();
+        NodeList divList = (NodeList) xpath.scenes.evaluate(doc, XPathConstants.NODESET);
         List<Scene> sceneList = new ArrayList<>();
-        for (int i = 0; i < divList.getLength(); i++) {
-            String sceneId = divList.item(i).getAttributes().getNamedItem("xml:id").getNodeValue();
-            String expr = String.format("//tei:body/tei:div[@xml:id= '%s']//tei:sp", sceneId);
-            NodeList spList = (NodeList) xpath.evaluate(expr, doc, XPathConstants.NODESET);
-            List<Speaker> speakers = new ArrayList<Speaker>();
-            for (int j = 0; j < spList.getLength(); j++) {
-                if (Optional.ofNullable(spList.item(j).getAttributes().getNamedItem("who")).isPresent()) {
-                    String speakerId = spList.item(j).getAttributes().getNamedItem("who").getNodeValue();
-                    String lineExpr = String.format("//tei:body/tei:div[@xml:id= '%s']//tei:sp[@who = '%s']//tei:l", sceneId, speakerId);
-                    NodeList lineList = (NodeList) xpath.evaluate(lineExpr, doc, XPathConstants.NODESET);
-
-                    List<String> lineStrings = IntStream.range(0, lineList.getLength())
-                            .mapToObj(lineList::item)
-                            .map(node -> node.getTextContent().trim())
-                            .toList();
-                    speakers.add(Speaker.builder().speaker(speakerId).lines(lineStrings).build());
+        try {
+            for (int i = 0; i < divList.getLength(); i++) {
+                String sceneId = divList.item(i).getAttributes().getNamedItem("xml:id").getNodeValue();
+                xpath.variables.put(SCENE_ID, sceneId);
+                NodeList spList = (NodeList) xpath.sceneSpeeches.evaluate(doc, XPathConstants.NODESET);
+                // Every speech of a speaker gets all lines of that speaker in the scene, so they are looked up once
+                Map<String, List<String>> linesBySpeaker = new HashMap<>();
+                List<Speaker> speakers = new ArrayList<Speaker>();
+                for (int j = 0; j < spList.getLength(); j++) {
+                    if (Optional.ofNullable(spList.item(j).getAttributes().getNamedItem("who")).isPresent()) {
+                        String speakerId = spList.item(j).getAttributes().getNamedItem("who").getNodeValue();
+                        List<String> lineStrings = linesBySpeaker.computeIfAbsent(speakerId, _ -> speakerLines(xpath, doc, speakerId));
+                        speakers.add(Speaker.builder().speaker(speakerId).lines(lineStrings).build());
+                    }
                 }
+                List<String> distinctSpeakers = speakers.stream().map(Speaker::getSpeaker).distinct().toList();
+                sceneList.add(Scene.builder().sceneId(sceneId).distinctSpeakers(distinctSpeakers).speakers(speakers).build());
             }
-            List<String> distinctSpeakers = speakers.stream().map(Speaker::getSpeaker).distinct().toList();
-            sceneList.add(Scene.builder().sceneId(sceneId).distinctSpeakers(distinctSpeakers).speakers(speakers).build());
+        } finally {
+            xpath.variables.clear();
         }
         return sceneList;
     }
+
+    /**
+     * Evaluate xpath to get the lines of a speaker in the scene set in {@code $sceneId}
+     *
+     * @param xpath     expressions of the current thread
+     * @param doc       DOM
+     * @param speakerId ID of the speaker
+     * @return lines spoken by the speaker in the scene
+     */
+    @SneakyThrows
+    private static List<String> speakerLines(Expressions xpath, Document doc, String speakerId) {
+        xpath.variables.put(SPEAKER_ID, speakerId);
+        NodeList lineList = (NodeList) xpath.speakerLines.evaluate(doc, XPathConstants.NODESET);
+        return IntStream.range(0, lineList.getLength())
+                .mapToObj(lineList::item)
+                .map(node -> node.getTextContent().trim())
+                .toList();
+    }
+
+    /**
+     * Expressions used for the extraction, compiled once per thread.
+     * Scene and speaker IDs are passed as the variables {@code $sceneId} and {@code $speakerId}
+     * instead of being formatted into the expression.
+     */
+    private static final class Expressions implements XPathVariableResolver {
+
+        private final Map<QName, Object> variables = new HashMap<>();
+
+        private final XPathExpression title;
+        private final XPathExpression date;
+        private final XPathExpression foreName;
+        private final XPathExpression surname;
+        private final XPathExpression persName;
+        private final XPathExpression persons;
+        private final XPathExpression scenes;
+        private final XPathExpression sceneSpeeches;
+        private final XPathExpression speakerLines;
+
+        @SneakyThrows
+        private Expressions() {
+            XPath xpath = XPathFactory.newInstance().newXPath();
+            xpath.setNamespaceContext(TEI_NAMESPACES);
+            xpath.setXPathVariableResolver(this);
+            title = xpath.compile("//tei:title");
+            date = xpath.compile("//tei:event/@when");
+            foreName = xpath.compile("//tei:author/tei:forename");
+            surname = xpath.compile("//tei:author/tei:surname");
+            persName = xpath.compile("//tei:author/tei:persName");
+            persons = xpath.compile("//tei:listPerson/tei:person");
+            scenes = xpath.compile("//tei:body/tei:div");
+            sceneSpeeches = xpath.compile("//tei:body/tei:div[@xml:id = $sceneId]//tei:sp");
+            speakerLines = xpath.compile("//tei:body/tei:div[@xml:id = $sceneId]//tei:sp[@who = $speakerId]//tei:l");
+        }
+
+        @Override
+        public Object resolveVariable(QName variableName) {
+            return variables.get(variableName);
+        }
+    }
 }
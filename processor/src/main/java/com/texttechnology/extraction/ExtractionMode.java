@@ -0,0 +1,88 @@
+package com.texttechnology.extraction;
+
+import com.texttechnology.data.drama.Drama;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Available ways of extracting a {@link Drama} from its TEI document, selected with {@code processor.extraction.mode}
+ */
+public enum ExtractionMode {
+
+    /**
+     * Parse the document into a DOM and evaluate XPath expressions, see {@link DramaDataExtraction}
+     */
+    DOM {
+        @Override
+        public Supplier<Drama> parse(String playXML) {
+            return new DramaDataExtraction(playXML)::extractData;
+        }
+
+        @Override
+        public Supplier<Drama> parse(InputStream playXML) {
+            return new DramaDataExtraction(playXML)::extractData;
+        }
+    },
+
+    /**
+     * Read the document in a single forward StAX pass, see {@link StreamingDramaDataExtraction}.
+     * The document is parsed while it is extracted, so parsing only opens the reader.
+     */
+    STAX {
+        @Override
+        public Supplier<Drama> parse(String playXML) {
+            return new StreamingDramaDataExtraction(playXML)::extractData;
+        }
+
+        @Override
+        public Supplier<Drama> parse(InputStream playXML) {
+            return new StreamingDramaDataExtraction(playXML)::extractData;
+        }
+    },
+
+    /**
+     * Evaluate {@link XQueryDramaExtraction} inside eXist-db, so that only the extracted structure is transferred.
+     * Plays not read from eXist-db, whose TEI is already at hand, are read like {@link #STAX}.
+     */
+    XQUERY {
+        @Override
+        public Supplier<Drama> parse(String playXML) {
+            return STAX.parse(playXML);
+        }
+
+        @Override
+        public Supplier<Drama> parse(InputStream playXML) {
+            return STAX.parse(playXML);
+        }
+    };
+
+    /**
+     * @param playXML TEI XML String
+     * @return extraction of the parsed document
+     */
+    public abstract Supplier<Drama> parse(String playXML);
+
+    /**
+     * @param playXML stream of the TEI XML, read while parsing or, for {@link #STAX}, while extracting
+     * @return extraction of the parsed document
+     */
+    public abstract Supplier<Drama> parse(InputStream playXML);
+
+    /**
+     * @param playXML stream of the TEI XML
+     * @return A POJO containing the extracted data for the drama
+     */
+    public Drama extract(InputStream playXML) {
+        return parse(playXML).get();
+    }
+
+    /**
+     * @param mode name of the mode, case-insensitive
+     * @return the matching extraction mode
+     */
+    public static ExtractionMode of(String mode) {
+        return valueOf(mode.strip().toUpperCase(Locale.ROOT));
+    }
+}
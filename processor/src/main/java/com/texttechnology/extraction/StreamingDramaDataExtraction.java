@@ -0,0 +1,277 @@
+package com.texttechnology.extraction;
+
+import com.texttechnology.data.drama.Cast;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.data.drama.Scene;
+import com.texttechnology.data.drama.Speaker;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Extracts a {@link Drama} in a single forward StAX pass over the TEI document.
+ * <p>
+ * Produces the same objects as {@link DramaDataExtraction} without building a DOM:
+ * only the scene currently being read is buffered, and the lines of a speaker are
+ * collected while their {@code tei:l} elements are passed instead of by one XPath per speaker.
+ */
+@Slf4j
+public class StreamingDramaDataExtraction {
+
+    private static final String TEI_NS = "http://www.tei-c.org/ns/1.0";
+
+    private final XMLStreamReader reader;
+
+    /**
+     * Names of the open elements, TEI elements by their local name and all others as an empty string
+     */
+    private final Deque<String> openElements = new ArrayDeque<>();
+    private final List<Capture> captures = new ArrayList<>();
+
+    private String title;
+    private String date;
+    private String foreName;
+    private String surname;
+    private String persName;
+
+    private final List<Cast> castList = new ArrayList<>();
+    private Cast.CastBuilder currentCast;
+    private int currentCastDepth;
+    private boolean currentCastNamed;
+
+    private final List<Scene> scenes = new ArrayList<>();
+    private String sceneId;
+    private int sceneDepth;
+    private final List<String> sceneSpeakers = new ArrayList<>();
+    private final Map<String, List<String>> sceneLines = new LinkedHashMap<>();
+    private final Deque<OpenSpeech> openSpeeches = new ArrayDeque<>();
+
+    public StreamingDramaDataExtraction(String playXML) {
+        this.reader = createReader(factory -> factory.createXMLStreamReader(new StringReader(playXML)));
+    }
+
+    public StreamingDramaDataExtraction(InputStream playXML) {
+        this.reader = createReader(factory -> factory.createXMLStreamReader(playXML));
+    }
+
+    /**
+     * @return A POJO containing the extracted data for the drama
+     */
+    @SneakyThrows
+    public Drama extractData() {
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> startElement();
+                    case XMLStreamConstants.END_ELEMENT -> endElement();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> text();
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        log.debug("Extracted {} cast members and {} scenes", castList.size(), scenes.size());
+        return Drama.builder()
+                .title(title != null ? title : "")
+                .authorName(author())
+                .date(date != null ? date : "")
+                .castList(List.copyOf(castList))
+                .scenes(scenes)
+                .build();
+    }
+
+    private void startElement() {
+        String name = TEI_NS.equals(reader.getNamespaceURI()) ? reader.getLocalName() : "";
+        String parent = openElements.isEmpty() ? "" : openElements.peek();
+        openElements.push(name);
+        int depth = openElements.size();
+
+        // persName of a cast member is looked up by tag name, i.e. unprefixed in any namespace
+        if (currentCast != null && !currentCastNamed && "persName".equals(reader.getLocalName())
+                && (reader.getPrefix() == null || reader.getPrefix().isEmpty())) {
+            currentCastNamed = true;
+            Cast.CastBuilder cast = currentCast;
+            capture(depth, cast::name);
+        }
+
+        switch (name) {
+            case "title" -> {
+                if (title == null) capture(depth, text -> title = text);
+            }
+            case "event" -> {
+                String when = attribute(XMLConstants.NULL_NS_URI, "when");
+                if (date == null && when != null) date = when;
+            }
+            case "forename" -> {
+                if (foreName == null && "author".equals(parent)) capture(depth, text -> foreName = text);
+            }
+            case "surname" -> {
+                if (surname == null && "author".equals(parent)) capture(depth, text -> surname = text);
+            }
+            case "persName" -> {
+                if (persName == null && "author".equals(parent)) capture(depth, text -> persName = text);
+            }
+            case "person" -> {
+                if ("listPerson".equals(parent) && currentCast == null) startCast(depth);
+            }
+            case "div" -> {
+                if ("body".equals(parent)) startScene(depth);
+            }
+            case "sp" -> {
+                if (sceneId != null) startSpeech(depth);
+            }
+            case "l" -> {
+                if (!openSpeeches.isEmpty()) startLine(depth);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void endElement() {
+        int depth = openElements.size();
+        for (int i = captures.size() - 1; i >= 0; i--) {
+            Capture capture = captures.get(i);
+            if (capture.depth() == depth) {
+                captures.remove(i);
+                capture.onEnd().accept(capture.text().toString());
+            }
+        }
+        if (!openSpeeches.isEmpty() && openSpeeches.peek().depth() == depth) {
+            openSpeeches.pop();
+        }
+        if (currentCast != null && currentCastDepth == depth) {
+            castList.add(currentCast.build());
+            currentCast = null;
+        }
+        if (sceneId != null && sceneDepth == depth) {
+            endScene();
+        }
+        openElements.pop();
+    }
+
+    private void text() {
+        if (captures.isEmpty()) return;
+        String text = reader.getText();
+        captures.forEach(capture -> capture.text().append(text));
+    }
+
+    private void startCast(int depth) {
+        String id = attribute(XMLConstants.XML_NS_URI, "id");
+        String sex = attribute(XMLConstants.NULL_NS_URI, "sex");
+        currentCast = Cast.builder()
+                .id("#" + (id != null ? id : ""))
+                .sex(sex != null ? sex : "");
+        currentCastDepth = depth;
+        currentCastNamed = false;
+    }
+
+    private void startScene(int depth) {
+        String id = attribute(XMLConstants.XML_NS_URI, "id");
+        if (id == null) {
+            throw new IllegalStateException("Scene at line " + reader.getLocation().getLineNumber() + " has no xml:id");
+        }
+        sceneId = id;
+        sceneDepth = depth;
+        sceneSpeakers.clear();
+        sceneLines.clear();
+    }
+
+    /**
+     * Lines of a speaker are all lines of the scene spoken by that speaker,
+     * which is the list every speech by the same speaker in the scene refers to
+     */
+    private void endScene() {
+        Map<String, List<String>> linesBySpeaker = new LinkedHashMap<>();
+        sceneLines.forEach((speaker, lines) -> linesBySpeaker.put(speaker, List.copyOf(lines)));
+        List<Speaker> speakers = sceneSpeakers.stream()
+                .map(speaker -> Speaker.builder()
+                        .speaker(speaker)
+                        .lines(linesBySpeaker.getOrDefault(speaker, List.of()))
+                        .build())
+                .toList();
+        List<String> distinctSpeakers = sceneSpeakers.stream().distinct().toList();
+        scenes.add(Scene.builder().sceneId(sceneId).distinctSpeakers(distinctSpeakers).speakers(new ArrayList<>(speakers)).build());
+        sceneId = null;
+    }
+
+    private void startSpeech(int depth) {
+        String who = attribute(XMLConstants.NULL_NS_URI, "who");
+        if (who == null) return;
+        sceneSpeakers.add(who);
+        openSpeeches.push(new OpenSpeech(who, depth));
+    }
+
+    private void startLine(int depth) {
+        Set<String> speakers = new LinkedHashSet<>();
+        openSpeeches.forEach(speech -> speakers.add(speech.who()));
+        capture(depth, text -> speakers.forEach(speaker ->
+                sceneLines.computeIfAbsent(speaker, _ -> new ArrayList<>()).add(text.trim())));
+    }
+
+    private void capture(int depth, Consumer<String> onEnd) {
+        captures.add(new Capture(depth, new StringBuilder(), onEnd));
+    }
+
+    private String author() {
+        String foreName = this.foreName != null ? this.foreName : "";
+        String surname = this.surname != null ? this.surname : "";
+        if (!(foreName.isBlank() && surname.isBlank())) {
+            return foreName.strip() + " " + surname.strip();
+        }
+        return persName != null ? persName : "";
+    }
+
+    private String attribute(String namespaceURI, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attributeNamespace = reader.getAttributeNamespace(i);
+            if (localName.equals(reader.getAttributeLocalName(i))
+                    && namespaceURI.equals(attributeNamespace != null ? attributeNamespace : XMLConstants.NULL_NS_URI)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    @SneakyThrows
+    private static XMLStreamReader createReader(ReaderFactory readerFactory) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return readerFactory.create(factory);
+    }
+
+    @FunctionalInterface
+    private interface ReaderFactory {
+        XMLStreamReader create(XMLInputFactory factory) throws Exception;
+    }
+
+    /**
+     * Text content of an element that is collected until the element at {@code depth} ends
+     */
+    private record Capture(int depth, StringBuilder text, Consumer<String> onEnd) {
+    }
+
+    /**
+     * A {@code tei:sp} with a speaker that is still open at {@code depth}
+     */
+    private record OpenSpeech(String who, int depth) {
+    }
+}
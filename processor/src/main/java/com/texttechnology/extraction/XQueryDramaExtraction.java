@@ -0,0 +1,215 @@
+package com.texttechnology.extraction;
+
+import com.texttechnology.data.drama.Cast;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.data.drama.Scene;
+import com.texttechnology.data.drama.Speaker;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts a {@link Drama} inside eXist-db: an XQuery evaluated next to the stored TEI returns only the
+ * title, author, date, cast and, per scene, the ordered speaker ids and the lines of each distinct speaker,
+ * which is mapped to the same objects as {@link DramaDataExtraction} without transferring or parsing the TEI.
+ */
+@Slf4j
+public class XQueryDramaExtraction {
+
+    private static final String COLLECTION = "/db/plays";
+
+    /**
+     * Same selection as the XPath expressions of {@link ExtractionFunctions}; lines are trimmed after the transfer,
+     * as XQuery has no equivalent of {@link String#trim()}
+     */
+    private static final String QUERY = """
+            declare namespace tei = "http://www.tei-c.org/ns/1.0";
+            let $resource := "%s"
+            let $doc := doc("%s/" || $resource)
+            return
+                <drama size="{xmldb:size("%s", $resource)}">
+                    <forename>{string(($doc//tei:author/tei:forename)[1])}</forename>
+                    <surname>{string(($doc//tei:author/tei:surname)[1])}</surname>
+                    <persName>{string(($doc//tei:author/tei:persName)[1])}</persName>
+                    <title>{string(($doc//tei:title)[1])}</title>
+                    <date>{string(($doc//tei:event/@when)[1])}</date>
+                    {
+                        for $person in $doc//tei:listPerson/tei:person
+                        return <cast id="#{$person/@xml:id}" sex="{$person/@sex}">{ for $name in ($person//*[name() = "persName"])[1] return <name>{string($name)}</name> }</cast>
+                    }
+                    {
+                        for $scene in $doc//tei:body/tei:div
+                        let $speeches := $scene//tei:sp[@who]
+                        return
+                            <scene id="{$scene/@xml:id}">
+                                { for $speech in $speeches return <sp who="{$speech/@who}"/> }
+                                {
+                                    for $who in distinct-values($speeches/@who)
+                                    return <speaker who="{$who}">{ for $line in $scene//tei:sp[@who = $who]//tei:l return <l>{string($line)}</l> }</speaker>
+                                }
+                            </scene>
+                    }
+                </drama>
+            """;
+
+    private final XMLStreamReader reader;
+
+    /**
+     * Size in bytes of the stored TEI as estimated by eXist-db
+     */
+    @Getter
+    private final long sourceBytes;
+
+    /**
+     * Reads the result up to its root element, so that the size of the TEI is known before extracting
+     *
+     * @param result response of eXist-db to the {@link #request(String) request}
+     */
+    @SneakyThrows
+    public XQueryDramaExtraction(String result) {
+        this.reader = createReader(result);
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "drama".equals(reader.getLocalName())) {
+                sourceBytes = Long.parseLong(attribute("size", "0"));
+                return;
+            }
+        }
+        throw new IllegalStateException("No drama in the result of the extraction query");
+    }
+
+    /**
+     * @param playName name of the play in eXist-db
+     * @return body of the REST request evaluating the extraction query for the play
+     */
+    public static String request(String playName) {
+        String resource = (playName + ".xml").replace("&", "&amp;").replace("\"", "\"\"");
+        String query = QUERY.formatted(resource, COLLECTION, COLLECTION);
+        return """
+                <query xmlns="http://exist.sourceforge.net/NS/exist" start="1" max="1" wrap="yes">
+                    <text>%s</text>
+                    <properties>
+                        <property name="indent" value="no"/>
+                    </properties>
+                </query>
+                """.formatted(escape(query));
+    }
+
+    /**
+     * @return A POJO containing the extracted data for the drama
+     */
+    @SneakyThrows
+    public Drama extractData() {
+        Drama.DramaBuilder drama = Drama.builder();
+        Map<String, String> author = new HashMap<>();
+        List<Cast> castList = new ArrayList<>();
+        List<Scene> scenes = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+                switch (reader.getLocalName()) {
+                    case "forename", "surname", "persName" -> author.put(reader.getLocalName(), reader.getElementText());
+                    case "title" -> drama.title(reader.getElementText());
+                    case "date" -> drama.date(reader.getElementText());
+                    case "cast" -> castList.add(cast());
+                    case "scene" -> scenes.add(scene());
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        log.debug("Extracted {} cast members and {} scenes", castList.size(), scenes.size());
+        return drama.authorName(author(author.getOrDefault("forename", ""), author.getOrDefault("surname", ""), author.getOrDefault("persName", "")))
+                .castList(castList).scenes(scenes).build();
+    }
+
+    /**
+     * The name is only returned for a cast member with a persName, so one without keeps a null name as in
+     * {@link ExtractionFunctions#getCast}
+     */
+    private Cast cast() throws Exception {
+        Cast.CastBuilder cast = Cast.builder()
+                .id(attribute("id", "#"))
+                .sex(attribute("sex", ""));
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "cast".equals(reader.getLocalName())) break;
+            if (event == XMLStreamConstants.START_ELEMENT && "name".equals(reader.getLocalName())) {
+                cast.name(reader.getElementText());
+            }
+        }
+        return cast.build();
+    }
+
+    /**
+     * Speeches refer to all lines of their speaker in the scene, as in {@link ExtractionFunctions#getScenes}
+     */
+    private Scene scene() throws Exception {
+        String sceneId = attribute("id", "");
+        List<String> speeches = new ArrayList<>();
+        Map<String, List<String>> linesBySpeaker = new HashMap<>();
+        List<String> lines = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "scene".equals(reader.getLocalName())) break;
+            if (event != XMLStreamConstants.START_ELEMENT) continue;
+            switch (reader.getLocalName()) {
+                case "sp" -> speeches.add(attribute("who", ""));
+                case "speaker" -> {
+                    lines = new ArrayList<>();
+                    linesBySpeaker.put(attribute("who", ""), lines);
+                }
+                case "l" -> {
+                    if (lines != null) lines.add(reader.getElementText().trim());
+                }
+                default -> {
+                }
+            }
+        }
+        Map<String, List<String>> immutableLines = new HashMap<>();
+        linesBySpeaker.forEach((speaker, speakerLines) -> immutableLines.put(speaker, List.copyOf(speakerLines)));
+        List<Speaker> speakers = new ArrayList<>(speeches.size());
+        for (String speaker : speeches) {
+            speakers.add(Speaker.builder().speaker(speaker).lines(immutableLines.getOrDefault(speaker, List.of())).build());
+        }
+        return Scene.builder()
+                .sceneId(sceneId)
+                .distinctSpeakers(speeches.stream().distinct().toList())
+                .speakers(speakers)
+                .build();
+    }
+
+    private static String author(String foreName, String surname, String persName) {
+        if (!(foreName.isBlank() && surname.isBlank())) {
+            return foreName.strip() + " " + surname.strip();
+        }
+        return persName;
+    }
+
+    private String attribute(String localName, String defaultValue) {
+        String value = reader.getAttributeValue(null, localName);
+        return value != null ? value : defaultValue;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    @SneakyThrows
+    private static XMLStreamReader createReader(String result) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(new StringReader(result));
+    }
+}
@@ -0,0 +1,214 @@
+package com.texttechnology.graph;
+
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.data.drama.Scene;
+import com.texttechnology.data.drama.Speaker;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The nodes and relationships of a {@link Drama} as parameter rows, one row per node or relationship.
+ * <p>
+ * Interaction, dialogue and co-appearance counts are aggregated for the whole drama before any row is built:
+ * character IDs are interned to indices once, and pairs are counted in primitive maps keyed by both indices,
+ * so every relationship is written once with its final count. Interactions also carry the ordinals of the scenes
+ * they occurred in with the count up to each of them, so the count within any range of scenes can be read off.
+ */
+@Getter
+public class DramaGraph {
+
+    private final String dramaTitle;
+    private final List<Map<String, Object>> castRows = new ArrayList<>();
+    private final List<Map<String, Object>> sceneRows = new ArrayList<>();
+    private final List<Map<String, Object>> speakerRows = new ArrayList<>();
+    private final List<Map<String, Object>> interactsInRows = new ArrayList<>();
+    private final List<Map<String, Object>> interactionRows = new ArrayList<>();
+    private final List<Map<String, Object>> dialogueRows = new ArrayList<>();
+    private final List<Map<String, Object>> coAppearanceRows = new ArrayList<>();
+
+    /**
+     * Lines of each speaker row, in the order of the rows; the {@code lineOffset} of a row is the number of
+     * lines of all rows before it
+     */
+    private final List<List<String>> speakerLines = new ArrayList<>();
+
+    /**
+     * Index of the first speaker and interacts-in row of each scene, followed by the number of rows
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] speakerRowStart;
+    @Getter(AccessLevel.NONE)
+    private final int[] interactsInRowStart;
+
+    private DramaGraph(String dramaTitle, int sceneCount) {
+        this.dramaTitle = dramaTitle;
+        this.speakerRowStart = new int[sceneCount + 1];
+        this.interactsInRowStart = new int[sceneCount + 1];
+    }
+
+    /**
+     * @param drama whose nodes and relationships are collected
+     * @return the rows of the drama, with the lines of speakers in the speaker rows
+     */
+    public static DramaGraph of(Drama drama) {
+        return of(drama, LineStorage.GRAPH);
+    }
+
+    /**
+     * @param drama       whose nodes and relationships are collected
+     * @param lineStorage where the lines of speakers are stored; speaker rows only carry them for {@link LineStorage#GRAPH},
+     *                    and only carry their offset for {@link LineStorage#EXTERNAL}
+     * @return the rows of the drama
+     */
+    public static DramaGraph of(Drama drama, LineStorage lineStorage) {
+        List<Scene> scenes = drama.getScenes() != null ? drama.getScenes() : List.of();
+        DramaGraph graph = new DramaGraph(drama.getTitle(), scenes.size());
+
+        if (drama.getCastList() != null) {
+            drama.getCastList().forEach(cast -> graph.castRows.add(row(
+                    "castId", cast.getId(),
+                    "name", cast.getName(),
+                    "sex", cast.getSex())));
+        }
+
+        List<String> characters = new ArrayList<>();
+        Map<String, Integer> characterIndex = new HashMap<>();
+        int expectedPairs = graph.castRows.size() * 4;
+        PairCounts interactions = new PairCounts(expectedPairs, true);
+        PairCounts dialogues = new PairCounts(expectedPairs);
+        PairCounts coAppearances = new PairCounts(expectedPairs);
+        boolean linesInGraph = lineStorage == LineStorage.GRAPH;
+        long lineOffset = 0;
+
+        for (int sceneIndex = 0; sceneIndex < scenes.size(); sceneIndex++) {
+            Scene scene = scenes.get(sceneIndex);
+            graph.speakerRowStart[sceneIndex] = graph.speakerRows.size();
+            graph.interactsInRowStart[sceneIndex] = graph.interactsInRows.size();
+            graph.sceneRows.add(row(
+                    "sceneId", scene.getSceneId(),
+                    "ordinal", sceneIndex,
+                    "distinctSpeakers", scene.getDistinctSpeakers(),
+                    "speakerCount", scene.getDistinctSpeakers() != null ? scene.getDistinctSpeakers().size() : 0));
+
+            if (scene.getSpeakers() != null) {
+                List<Speaker> speakers = scene.getSpeakers();
+                Set<String> speaking = new HashSet<>();
+                BitSet interacting = new BitSet();
+                int previous = -1;
+                for (Speaker speaker : speakers) {
+                    // Every speech of a speaker refers to all their lines in the scene, so one row per speaker suffices
+                    if (speaking.add(speaker.getSpeaker())) {
+                        List<String> lines = speaker.getLines() != null ? speaker.getLines() : List.of();
+                        graph.speakerRows.add(row(
+                                "sceneId", scene.getSceneId(),
+                                "castId", speaker.getSpeaker(),
+                                "lineCount", lines.size(),
+                                "lines", linesInGraph ? speaker.getLines() : null,
+                                "lineOffset", linesInGraph ? null : lineOffset));
+                        graph.speakerLines.add(lines);
+                        lineOffset += lines.size();
+                    }
+                    int current = intern(speaker.getSpeaker(), characters, characterIndex);
+                    // Adjacent speeches of different speakers are an interaction
+                    if (previous >= 0 && previous != current) {
+                        interactions.increment(Math.min(previous, current), Math.max(previous, current), sceneIndex);
+                        dialogues.increment(previous, current, sceneIndex);
+                        interacting.set(previous);
+                        interacting.set(current);
+                    }
+                    previous = current;
+                }
+                interacting.stream().forEach(character -> graph.interactsInRows.add(row(
+                        "castId", characters.get(character),
+                        "sceneId", scene.getSceneId())));
+            }
+
+            if (scene.getDistinctSpeakers() != null) {
+                int[] distinct = scene.getDistinctSpeakers().stream()
+                        .mapToInt(speaker -> intern(speaker, characters, characterIndex))
+                        .toArray();
+                for (int i = 0; i < distinct.length; i++) {
+                    for (int j = i + 1; j < distinct.length; j++) {
+                        coAppearances.increment(Math.min(distinct[i], distinct[j]), Math.max(distinct[i], distinct[j]), sceneIndex);
+                    }
+                }
+            }
+        }
+
+        graph.speakerRowStart[scenes.size()] = graph.speakerRows.size();
+        graph.interactsInRowStart[scenes.size()] = graph.interactsInRows.size();
+
+        interactions.forEachWithScenes((first, second, count, lastScene, sceneIndex, cumulativeCount) -> graph.interactionRows.add(row(
+                "speaker1", characters.get(first),
+                "speaker2", characters.get(second),
+                "count", count,
+                "lastScene", scenes.get(lastScene).getSceneId(),
+                "sceneIndex", Arrays.stream(sceneIndex).boxed().toList(),
+                "cumulativeCount", Arrays.stream(cumulativeCount).boxed().toList())));
+        dialogues.forEach((first, second, count, _) -> graph.dialogueRows.add(row(
+                "speaker1", characters.get(first),
+                "speaker2", characters.get(second),
+                "count", count)));
+        coAppearances.forEach((first, second, count, _) -> graph.coAppearanceRows.add(row(
+                "speaker1", characters.get(first),
+                "speaker2", characters.get(second),
+                "count", count)));
+        return graph;
+    }
+
+    /**
+     * @param fromScene index of the first scene, inclusive
+     * @param toScene   index of the last scene, exclusive
+     * @return rows of the scenes in the range
+     */
+    public List<Map<String, Object>> getSceneRows(int fromScene, int toScene) {
+        return sceneRows.subList(fromScene, toScene);
+    }
+
+    /**
+     * @param fromScene index of the first scene, inclusive
+     * @param toScene   index of the last scene, exclusive
+     * @return speaker rows of the scenes in the range
+     */
+    public List<Map<String, Object>> getSpeakerRows(int fromScene, int toScene) {
+        return speakerRows.subList(speakerRowStart[fromScene], speakerRowStart[toScene]);
+    }
+
+    /**
+     * @param fromScene index of the first scene, inclusive
+     * @param toScene   index of the last scene, exclusive
+     * @return interacts-in rows of the scenes in the range
+     */
+    public List<Map<String, Object>> getInteractsInRows(int fromScene, int toScene) {
+        return interactsInRows.subList(interactsInRowStart[fromScene], interactsInRowStart[toScene]);
+    }
+
+    private static int intern(String castId, List<String> characters, Map<String, Integer> characterIndex) {
+        return characterIndex.computeIfAbsent(castId, id -> {
+            characters.add(id);
+            return characters.size() - 1;
+        });
+    }
+
+    /**
+     * Build a parameter row from key value pairs; unlike {@link Map#of} null values are allowed
+     * @param keysAndValues alternating keys and values
+     * @return the row
+     */
+    private static Map<String, Object> row(Object... keysAndValues) {
+        Map<String, Object> row = new HashMap<>(keysAndValues.length);
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,28 @@
+package com.texttechnology.graph;
+
+import java.util.Locale;
+
+/**
+ * Where the lines spoken by a character in a scene are stored, selected with {@code processor.graph.lines}
+ */
+public enum LineStorage {
+
+    /**
+     * As the {@code lines} list property of the {@code SPEAKS_IN} relationship
+     */
+    GRAPH,
+
+    /**
+     * Outside of the graph, which keeps the {@code lineOffset} of the first line of the relationship in the lines
+     * of its drama next to the {@code lineCount}
+     */
+    EXTERNAL;
+
+    /**
+     * @param storage name of the storage, case-insensitive
+     * @return the matching line storage
+     */
+    public static LineStorage of(String storage) {
+        return valueOf(storage.strip().toUpperCase(Locale.ROOT));
+    }
+}
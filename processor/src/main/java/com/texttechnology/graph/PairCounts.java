@@ -0,0 +1,166 @@
+package com.texttechnology.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from a pair of character indices to the number of times the pair occurred
+ * and the last scene it occurred in, kept in primitive arrays to avoid boxing a key per occurrence.
+ * <p>
+ * Optionally the scenes a pair occurred in are kept as well, each with the count up to and including it,
+ * so that the count within any range of scenes is the difference of two of these prefix sums.
+ */
+final class PairCounts {
+
+    private static final long EMPTY = -1L;
+
+    private final boolean trackScenes;
+    private long[] keys;
+    private int[] counts;
+    private int[] lastScenes;
+    private int[][] scenes;
+    private int[][] cumulativeCounts;
+    private int[] sceneCounts;
+    private int size;
+
+    PairCounts(int expectedPairs) {
+        this(expectedPairs, false);
+    }
+
+    /**
+     * @param expectedPairs number of pairs to size the map for
+     * @param trackScenes   whether to keep the scenes of each pair with their cumulative counts
+     */
+    PairCounts(int expectedPairs, boolean trackScenes) {
+        this.trackScenes = trackScenes;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedPairs * 2) - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        lastScenes = new int[capacity];
+        if (trackScenes) {
+            scenes = new int[capacity][];
+            cumulativeCounts = new int[capacity][];
+            sceneCounts = new int[capacity];
+        }
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Count an occurrence of the pair
+     *
+     * @param first  index of the first character
+     * @param second index of the second character
+     * @param scene  index of the scene the pair occurred in
+     */
+    void increment(int first, int second, int scene) {
+        long key = ((long) first << 32) | (second & 0xFFFFFFFFL);
+        int slot = slot(key, keys.length);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot]++;
+        if (trackScenes) trackScene(slot, scene);
+        lastScenes[slot] = scene;
+        if (size * 2 > keys.length) grow();
+    }
+
+    /**
+     * Scenes are counted in order, so a pair either occurs again in its last scene or in a later one
+     */
+    private void trackScene(int slot, int scene) {
+        int entries = sceneCounts[slot];
+        if (entries > 0 && lastScenes[slot] == scene) {
+            cumulativeCounts[slot][entries - 1] = counts[slot];
+            return;
+        }
+        if (scenes[slot] == null) {
+            scenes[slot] = new int[4];
+            cumulativeCounts[slot] = new int[4];
+        } else if (entries == scenes[slot].length) {
+            scenes[slot] = Arrays.copyOf(scenes[slot], entries * 2);
+            cumulativeCounts[slot] = Arrays.copyOf(cumulativeCounts[slot], entries * 2);
+        }
+        scenes[slot][entries] = scene;
+        cumulativeCounts[slot][entries] = counts[slot];
+        sceneCounts[slot] = entries + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(PairConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept((int) (keys[slot] >>> 32), (int) keys[slot], counts[slot], lastScenes[slot]);
+            }
+        }
+    }
+
+    /**
+     * Only for maps that track scenes
+     */
+    void forEachWithScenes(PairScenesConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept((int) (keys[slot] >>> 32), (int) keys[slot], counts[slot], lastScenes[slot],
+                        Arrays.copyOf(scenes[slot], sceneCounts[slot]), Arrays.copyOf(cumulativeCounts[slot], sceneCounts[slot]));
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldLastScenes = lastScenes;
+        int[][] oldScenes = scenes;
+        int[][] oldCumulativeCounts = cumulativeCounts;
+        int[] oldSceneCounts = sceneCounts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[keys.length];
+        lastScenes = new int[keys.length];
+        if (trackScenes) {
+            scenes = new int[keys.length][];
+            cumulativeCounts = new int[keys.length][];
+            sceneCounts = new int[keys.length];
+        }
+        Arrays.fill(keys, EMPTY);
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] == EMPTY) continue;
+            int slot = slot(oldKeys[oldSlot], keys.length);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = oldKeys[oldSlot];
+            counts[slot] = oldCounts[oldSlot];
+            lastScenes[slot] = oldLastScenes[oldSlot];
+            if (trackScenes) {
+                scenes[slot] = oldScenes[oldSlot];
+                cumulativeCounts[slot] = oldCumulativeCounts[oldSlot];
+                sceneCounts[slot] = oldSceneCounts[oldSlot];
+            }
+        }
+    }
+
+    private static int slot(long key, int capacity) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(int first, int second, int count, int lastScene);
+    }
+
+    @FunctionalInterface
+    interface PairScenesConsumer {
+        /**
+         * @param scenes           indices of the scenes the pair occurred in, ascending
+         * @param cumulativeCounts count of the pair up to and including the scene at the same position
+         */
+        void accept(int first, int second, int count, int lastScene, int[] scenes, int[] cumulativeCounts);
+    }
+}
@@ -0,0 +1,90 @@
+package com.texttechnology.ingest;
+
+import lombok.SneakyThrows;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Counts the bytes of a streamed TEI, whose size is only known once it was read, and optionally hashes them
+ * like {@link com.texttechnology.source.PlaySource#contentHash}
+ */
+class CountingInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long count;
+
+    CountingInputStream(InputStream in) {
+        this(in, false);
+    }
+
+    @SneakyThrows
+    CountingInputStream(InputStream in, boolean hash) {
+        super(in);
+        this.digest = hash ? MessageDigest.getInstance("SHA-256") : null;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Reads the rest of the stream, which a parser may leave after the root element, and hashes all bytes read
+     * @return hex SHA-256 of the bytes of the stream
+     */
+    String contentHash() throws IOException {
+        byte[] buffer = new byte[8192];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // Drained for the hash
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count++;
+            if (digest != null) digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count += read;
+            if (digest != null) digest.update(buffer, offset, read);
+        }
+        return read;
+    }
+
+    /**
+     * Skipped bytes are read, so that they are hashed
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (digest != null) {
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            long remaining = n;
+            while (remaining > 0) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) break;
+                remaining -= read;
+            }
+            return n - Math.max(remaining, 0);
+        }
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
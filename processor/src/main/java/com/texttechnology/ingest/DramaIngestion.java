@@ -0,0 +1,251 @@
+package com.texttechnology.ingest;
+
+import com.texttechnology.DramaRepository;
+import com.texttechnology.cache.DramaCache;
+import com.texttechnology.data.drama.Drama;
+import com.texttechnology.extraction.ExtractionMode;
+import com.texttechnology.extraction.XQueryDramaExtraction;
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.graph.LineStorage;
+import com.texttechnology.ingest.IngestMetrics.SizeBucket;
+import com.texttechnology.ingest.IngestMetrics.Stage;
+import com.texttechnology.lines.LineStore;
+import com.texttechnology.source.PlaySource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import restclients.ExistDbRestClient;
+import restclients.VisualizerRestClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Loads a drama inserted into the eXist-db by the scraper or read from a local source, extracts its data and inserts it into Neo4J.
+ * <p>
+ * A drama is ingested by one thread at a time, whether it was queued or read from a local source, so that the deletes,
+ * chunks and line file of one ingestion never interleave with those of another.
+ */
+@Slf4j
+@ApplicationScoped
+public class DramaIngestion {
+
+    @Inject
+    @RestClient
+    ExistDbRestClient existDbRestClient;
+
+    @Inject
+    @RestClient
+    VisualizerRestClient visualizerRestClient;
+
+    @Inject
+    DramaRepository dramaRepository;
+
+    @Inject
+    IngestMetrics ingestMetrics;
+
+    @Inject
+    DramaCache dramaCache;
+
+    @Inject
+    @ConfigProperty(name = "processor.extraction.mode", defaultValue = "stax")
+    String extractionMode;
+
+    @Inject
+    @ConfigProperty(name = "processor.graph.lines", defaultValue = "graph")
+    String lineStorage;
+
+    @Inject
+    LineStore lineStore;
+
+    private final Map<String, DramaLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Lock of a drama, dropped once no thread holds or waits for it
+     */
+    private static class DramaLock extends ReentrantLock {
+        private int users;
+    }
+
+    /**
+     * Replaces the stored drama, unless it was stored from a TEI with the same content hash
+     *
+     * @param drama      Name of the play in eXist-db
+     * @param sourceHash content hash of the TEI computed by the scraper, null to always fetch and extract the drama
+     * @return false if the drama was skipped as unchanged
+     */
+    public boolean ingest(String drama, String sourceHash) {
+        return exclusively(drama, () -> ingestFetched(drama, sourceHash));
+    }
+
+    @SneakyThrows
+    private boolean ingestFetched(String drama, String sourceHash) {
+        String storedHash = dramaRepository.findSourceHash(drama);
+        if (sourceHash != null && sourceHash.equals(storedHash)) {
+            log.info("Skipping unchanged drama {}", drama);
+            return false;
+        }
+        long start = System.nanoTime();
+        // Only a hash known before fetching can find a cached extraction
+        if (sourceHash != null && writeCached(drama, sourceHash, start)) return true;
+        if (ExtractionMode.of(extractionMode) == ExtractionMode.XQUERY) {
+            log.info("Extracting data in Exist DB");
+            String result = existDbRestClient.xquery(XQueryDramaExtraction.request(drama));
+            Duration fetch = Duration.ofNanos(System.nanoTime() - start);
+            XQueryDramaExtraction extraction = new XQueryDramaExtraction(result);
+            // The result is not the TEI, so without a hash from the scraper the drama is neither cached nor hashed
+            process(drama, extraction.getSourceBytes(), () -> extraction::extractData, sourceHash, start, fetch);
+            return true;
+        }
+        log.info("Fetching data from Exist DB");
+        processStream(drama, sourceHash, start);
+        return true;
+    }
+
+    /**
+     * Replaces the stored drama with a play read from a local source, unless it was stored from the same TEI
+     *
+     * @param drama   name of the play, stored as the source of the drama
+     * @param playXML bytes of the TEI XML of the play, hashed and parsed without decoding them into a String
+     * @return false if the drama was skipped as unchanged
+     */
+    public boolean ingestLocal(String drama, ByteBuffer playXML) {
+        return exclusively(drama, () -> ingestRead(drama, playXML));
+    }
+
+    private boolean ingestRead(String drama, ByteBuffer playXML) {
+        String sourceHash = PlaySource.contentHash(playXML);
+        if (sourceHash.equals(dramaRepository.findSourceHash(drama))) {
+            log.info("Skipping unchanged drama {}", drama);
+            return false;
+        }
+        long start = System.nanoTime();
+        if (!writeCached(drama, sourceHash, start)) {
+            process(drama, playXML, sourceHash, start, null);
+        }
+        return true;
+    }
+
+    /**
+     * Runs the ingestion holding the lock of the drama, after any other ingestion of it has finished
+     */
+    private boolean exclusively(String drama, Supplier<Boolean> ingestion) {
+        DramaLock lock = locks.compute(drama, (_, held) -> {
+            DramaLock used = held != null ? held : new DramaLock();
+            used.users++;
+            return used;
+        });
+        lock.lock();
+        try {
+            return ingestion.get();
+        } finally {
+            lock.unlock();
+            locks.computeIfPresent(drama, (_, held) -> --held.users == 0 ? null : held);
+        }
+    }
+
+    /**
+     * @return true if the drama was extracted before from the TEI with the hash, and was written from the cache
+     */
+    private boolean writeCached(String drama, String sourceHash, long start) {
+        return dramaCache.get(sourceHash)
+                .map(cached -> {
+                    SizeBucket size = SizeBucket.of(cached.sourceBytes());
+                    ingestMetrics.countCache(size, true);
+                    log.info("Loaded extracted drama {} from the cache", drama);
+                    write(drama, cached.drama(), sourceHash, size, start);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Parses the TEI straight from the response of eXist-db, so that it is never held in memory as a String.
+     * Fetching is then interleaved with parsing, and only waiting for the response is counted as fetching.
+     *
+     * @param sourceHash content hash of the TEI, null to hash the bytes fetched, under which the extracted drama is
+     *                   cached and stored
+     */
+    private void processStream(String drama, String sourceHash, long start) throws IOException {
+        try (CountingInputStream playXML = new CountingInputStream(existDbRestClient.streamPlayXML(drama), sourceHash == null)) {
+            long parseStart = System.nanoTime();
+            Supplier<Drama> extraction = ExtractionMode.of(extractionMode).parse(playXML);
+            long extractionStart = System.nanoTime();
+            Drama extracted = extraction.get();
+            long end = System.nanoTime();
+            String fetchedHash = sourceHash != null ? sourceHash : playXML.contentHash();
+
+            SizeBucket size = SizeBucket.of(playXML.getCount());
+            ingestMetrics.record(Stage.FETCH, size, Duration.ofNanos(parseStart - start));
+            ingestMetrics.countSource(size, playXML.getCount());
+            ingestMetrics.record(Stage.PARSE, size, Duration.ofNanos(extractionStart - parseStart));
+            ingestMetrics.record(Stage.EXTRACTION, size, Duration.ofNanos(end - extractionStart));
+            store(drama, extracted, playXML.getCount(), size, fetchedHash, start);
+        }
+    }
+
+    /**
+     * @param sourceHash content hash of the TEI, the extracted drama is cached under it unless null
+     * @param fetch      time taken to fetch the TEI, null if it was not fetched
+     */
+    private void process(String drama, ByteBuffer playXML, String sourceHash, long start, Duration fetch) {
+        process(drama, playXML.remaining(), () -> ExtractionMode.of(extractionMode).parse(PlaySource.stream(playXML)),
+                sourceHash, start, fetch);
+    }
+
+    /**
+     * @param bytes size of the TEI in bytes
+     * @param parse parses the TEI into its extraction
+     */
+    private void process(String drama, long bytes, Supplier<Supplier<Drama>> parse, String sourceHash, long start, Duration fetch) {
+        SizeBucket size = SizeBucket.of(bytes);
+        if (fetch != null) ingestMetrics.record(Stage.FETCH, size, fetch);
+        ingestMetrics.countSource(size, bytes);
+
+        Supplier<Drama> extraction = ingestMetrics.time(Stage.PARSE, size, parse);
+        Drama extracted = ingestMetrics.time(Stage.EXTRACTION, size, extraction);
+        store(drama, extracted, bytes, size, sourceHash, start);
+    }
+
+    private void store(String drama, Drama extracted, long bytes, SizeBucket size, String sourceHash, long start) {
+        if (sourceHash != null) {
+            ingestMetrics.countCache(size, false);
+            dramaCache.put(sourceHash, extracted, bytes);
+        }
+        write(drama, extracted, sourceHash, size, start);
+    }
+
+    private void write(String drama, Drama extracted, String sourceHash, SizeBucket size, long start) {
+        LineStorage lines = LineStorage.of(lineStorage);
+        ingestMetrics.time(Stage.WRITE, size, () -> {
+            DramaGraph graph = DramaGraph.of(extracted, lines);
+            // Lines are stored first, so that no committed relationship refers to lines that are not stored yet
+            if (lines == LineStorage.EXTERNAL) lineStore.write(graph);
+            dramaRepository.insertDrama(extracted, graph, drama, sourceHash, size);
+            return null;
+        });
+        ingestMetrics.record(Stage.TOTAL, size, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Inserted drama {} into Neo4J", drama);
+        invalidateVisualizerCache(extracted.getTitle());
+    }
+
+    /**
+     * Best effort: if the visualizer is unreachable, its cached graph expires after its TTL
+     * @param title title of the ingested drama
+     */
+    private void invalidateVisualizerCache(String title) {
+        try (var _ = visualizerRestClient.invalidateDrama(title)) {
+            log.debug("Invalidated cached graph of drama {} in the visualizer", title);
+        } catch (Exception e) {
+            log.warn("Could not invalidate cached graph of drama {} in the visualizer: {}", title, e.getMessage());
+        }
+    }
+}
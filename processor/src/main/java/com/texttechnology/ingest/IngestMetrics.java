@@ -0,0 +1,190 @@
+package com.texttechnology.ingest;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters of the ingestion of dramas, exposed on {@code /metrics}.
+ * <p>
+ * Every metric is tagged with the {@link SizeBucket} of the TEI of the drama, so that slow loads
+ * can be told apart from large plays; stage timers are tagged by {@link Stage}, Cypher timers by statement kind.
+ */
+@ApplicationScoped
+public class IngestMetrics {
+
+    private static final Metadata STAGE_DURATION = Metadata.builder()
+            .withName("ingest.stage.duration")
+            .withDescription("Duration of a stage of the ingestion of a drama")
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+    private static final Metadata STATEMENT_DURATION = Metadata.builder()
+            .withName("ingest.cypher.duration")
+            .withDescription("Duration of a Cypher statement writing the graph of a drama")
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+    private static final Metadata SOURCE_SIZE = Metadata.builder()
+            .withName("ingest.source.size")
+            .withDescription("Size of the TEI of an ingested drama")
+            .withUnit(MetricUnits.BYTES)
+            .build();
+
+    /**
+     * Stages of the ingestion of a drama
+     */
+    public enum Stage {
+        /**
+         * Loading the TEI from eXist-db
+         */
+        FETCH,
+        /**
+         * Parsing the TEI; for StAX extraction parsing is interleaved with extraction and only opening the reader is counted
+         */
+        PARSE,
+        /**
+         * Extracting the drama from the parsed TEI
+         */
+        EXTRACTION,
+        /**
+         * Writing the graph of the drama into Neo4J
+         */
+        WRITE,
+        /**
+         * The whole ingestion of a drama that was not skipped as unchanged
+         */
+        TOTAL
+    }
+
+    /**
+     * Size of the TEI of a drama
+     */
+    public enum SizeBucket {
+        SMALL(100 * 1024),
+        MEDIUM(1024 * 1024),
+        LARGE(10 * 1024 * 1024),
+        HUGE(Long.MAX_VALUE),
+        /**
+         * The drama was not ingested from a TEI of known size
+         */
+        UNKNOWN(-1);
+
+        private final long maxBytes;
+
+        SizeBucket(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @param bytes size of the TEI
+         * @return the smallest bucket the size fits into
+         */
+        public static SizeBucket of(long bytes) {
+            if (bytes < 0) return UNKNOWN;
+            for (SizeBucket bucket : values()) {
+                if (bytes < bucket.maxBytes) return bucket;
+            }
+            return HUGE;
+        }
+
+        private Tag tag() {
+            return new Tag("size", name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final MetricRegistry registry;
+
+    @Inject
+    public IngestMetrics(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return metrics that record nothing, for use outside the container
+     */
+    public static IngestMetrics disabled() {
+        return new IngestMetrics(null);
+    }
+
+    /**
+     * @param stage  of the ingestion
+     * @param size   of the drama
+     * @param action performing the stage
+     * @return the result of the action
+     */
+    public <T> T time(Stage stage, SizeBucket size, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(stage, size, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @param stage    of the ingestion
+     * @param size     of the drama
+     * @param duration the stage took
+     */
+    public void record(Stage stage, SizeBucket size, Duration duration) {
+        if (registry == null) return;
+        registry.timer(STAGE_DURATION, new Tag("stage", stage.name().toLowerCase(Locale.ROOT)), size.tag()).update(duration);
+    }
+
+    /**
+     * @param statement kind of the Cypher statement
+     * @param size      of the drama
+     * @param action    running the statement to completion
+     */
+    public void timeStatement(String statement, SizeBucket size, Runnable action) {
+        if (registry == null) {
+            action.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            registry.timer(STATEMENT_DURATION, new Tag("statement", statement), size.tag())
+                    .update(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @param size  of the drama
+     * @param bytes of the TEI the drama was extracted from
+     */
+    public void countSource(SizeBucket size, long bytes) {
+        if (registry == null) return;
+        registry.counter("ingest.bytes", size.tag()).inc(bytes);
+        registry.histogram(SOURCE_SIZE, size.tag()).update(bytes);
+    }
+
+    /**
+     * @param size of the drama
+     * @param hit  whether the extracted drama was loaded from the cache instead of fetching and extracting its TEI
+     */
+    public void countCache(SizeBucket size, boolean hit) {
+        if (registry == null) return;
+        registry.counter("ingest.cache", size.tag(), new Tag("result", hit ? "hit" : "miss")).inc();
+    }
+
+    /**
+     * @param size          of the drama
+     * @param scenes        written
+     * @param speakers      speaker relationships written
+     * @param relationships written in total, including the speaker relationships
+     */
+    public void countGraph(SizeBucket size, long scenes, long speakers, long relationships) {
+        if (registry == null) return;
+        registry.counter("ingest.scenes", size.tag()).inc(scenes);
+        registry.counter("ingest.speakers", size.tag()).inc(speakers);
+        registry.counter("ingest.relationships", size.tag()).inc(relationships);
+    }
+}
@@ -0,0 +1,52 @@
+package com.texttechnology.ingest;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Represents the processing of one drama, from being queued until it is inserted into Neo4J or has failed
+ */
+@Getter
+@ToString
+public class IngestionJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String drama;
+    private volatile String sourceHash;
+    private final Instant submittedAt = Instant.now();
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    IngestionJob(String drama, String sourceHash) {
+        this.drama = drama;
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * A job that has not started yet is resubmitted with the hash of the latest TEI
+     */
+    void replaceSourceHash(String sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    void complete(boolean ingested) {
+        finishedAt = Instant.now();
+        status = ingested ? JobStatus.COMPLETED : JobStatus.SKIPPED;
+    }
+
+    void fail(Exception e) {
+        finishedAt = Instant.now();
+        error = e.toString();
+        status = JobStatus.FAILED;
+    }
+}
@@ -0,0 +1,215 @@
+package com.texttechnology.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of {@link IngestionJob}s drained by a fixed number of virtual-thread workers.
+ * <p>
+ * When the queue is full, submitting waits up to {@code processor.ingest.enqueue-timeout} seconds
+ * and is then rejected, so that callers back off instead of piling up work in memory.
+ * <p>
+ * A drama is only ingested by one job at a time. Submitting a drama again while its job is queued returns that job,
+ * with the hash of the latest submission. While it is running, one follow-up job is kept with the latest hash, and run
+ * by the same worker once the running job has finished, unless the running job already ingests the same known content.
+ */
+@Slf4j
+@ApplicationScoped
+public class IngestionQueue {
+
+    @Inject
+    DramaIngestion dramaIngestion;
+
+    @Inject
+    @ConfigProperty(name = "processor.ingest.workers", defaultValue = "2")
+    int workerCount;
+
+    @Inject
+    @ConfigProperty(name = "processor.ingest.queue-capacity", defaultValue = "100")
+    int queueCapacity;
+
+    @Inject
+    @ConfigProperty(name = "processor.ingest.enqueue-timeout", defaultValue = "5")
+    long enqueueTimeoutSeconds;
+
+    @Inject
+    @ConfigProperty(name = "processor.ingest.retained-jobs", defaultValue = "1000")
+    int retainedJobs;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    /**
+     * Queued or running job of each drama by its name, guarded by itself
+     */
+    private final Map<String, IngestionJob> inFlight = new HashMap<>();
+    /**
+     * Job to run after the running job of each drama, guarded by {@link #inFlight}
+     */
+    private final Map<String, IngestionJob> followUps = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private BlockingQueue<IngestionJob> queue;
+    private BlockingQueue<String> finishedJobs;
+
+    @PostConstruct
+    void startWorkers() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        finishedJobs = new ArrayBlockingQueue<>(Math.max(1, retainedJobs));
+        Thread.Builder builder = Thread.ofVirtual().name("ingest-worker-", 0);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(builder.start(this::drain));
+        }
+        log.info("Started {} ingest workers with a queue capacity of {}", workerCount, queueCapacity);
+    }
+
+    /**
+     * Start the workers together with the application instead of on the first request
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        log.debug("Ingestion queue initialized with {} workers", workers.size());
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queue a drama for processing
+     *
+     * @param drama      Name of the play in eXist-db
+     * @param sourceHash content hash of the TEI, null if unknown
+     * @return the queued job or the job of the drama already in flight, empty when the queue stayed full
+     * for the enqueue timeout
+     */
+    public Optional<IngestionJob> submit(String drama, String sourceHash) {
+        IngestionJob job;
+        synchronized (inFlight) {
+            IngestionJob pending = inFlight.get(drama);
+            if (pending != null) return Optional.of(resubmit(pending, sourceHash));
+            job = new IngestionJob(drama, sourceHash);
+            inFlight.put(drama, job);
+        }
+        jobs.put(job.getId(), job);
+        try {
+            if (queue.offer(job, enqueueTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.info("Queued drama {} as job {}", drama, job.getId());
+                return Optional.of(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Ingest queue is full, rejected drama {}", drama);
+        // A concurrent submission may have been handed the job already, so it is kept as failed
+        synchronized (inFlight) {
+            inFlight.remove(drama, job);
+        }
+        job.fail(new RejectedExecutionException("Ingest queue is full"));
+        retain(job);
+        return Optional.empty();
+    }
+
+    /**
+     * Called holding {@link #inFlight}
+     *
+     * @param pending queued or running job of the drama
+     * @return the job that ingests the resubmitted drama
+     */
+    private IngestionJob resubmit(IngestionJob pending, String sourceHash) {
+        String drama = pending.getDrama();
+        if (pending.getStatus() == JobStatus.QUEUED) {
+            // Not fetched yet, so the queued job ingests the latest TEI
+            pending.replaceSourceHash(sourceHash);
+            log.info("Drama {} is already queued as job {}", drama, pending.getId());
+            return pending;
+        }
+        IngestionJob followUp = followUps.get(drama);
+        if (followUp != null) {
+            followUp.replaceSourceHash(sourceHash);
+        } else if (sourceHash != null && sourceHash.equals(pending.getSourceHash())) {
+            // The running job may have fetched the TEI already, so it only serves the same known content
+            log.info("Drama {} is already running as job {}", drama, pending.getId());
+            return pending;
+        } else {
+            followUp = new IngestionJob(drama, sourceHash);
+            followUps.put(drama, followUp);
+            jobs.put(followUp.getId(), followUp);
+        }
+        log.info("Drama {} is running, job {} follows it", drama, followUp.getId());
+        return followUp;
+    }
+
+    /**
+     * @param id ID of the job
+     * @return the job, empty when it is unknown or no longer retained
+     */
+    public Optional<IngestionJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                for (IngestionJob job = queue.take(); job != null; job = finish(job)) {
+                    process(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(IngestionJob job) {
+        synchronized (inFlight) {
+            // Started under the lock, so a resubmission either changes the hash before it is read or follows the job
+            job.start();
+        }
+        try {
+            job.complete(dramaIngestion.ingest(job.getDrama(), job.getSourceHash()));
+        } catch (Exception e) {
+            log.error("Error processing drama {}", job.getDrama(), e);
+            job.fail(e);
+        }
+    }
+
+    /**
+     * @return the follow-up job of the drama, now in flight, null if there is none
+     */
+    private IngestionJob finish(IngestionJob job) {
+        retain(job);
+        synchronized (inFlight) {
+            IngestionJob followUp = followUps.remove(job.getDrama());
+            if (followUp != null) {
+                inFlight.put(job.getDrama(), followUp);
+            } else {
+                inFlight.remove(job.getDrama(), job);
+            }
+            return followUp;
+        }
+    }
+
+    /**
+     * Keep the status of the last {@code processor.ingest.retained-jobs} finished jobs
+     */
+    private void retain(IngestionJob job) {
+        while (!finishedJobs.offer(job.getId())) {
+            String evicted = finishedJobs.poll();
+            if (evicted != null) jobs.remove(evicted);
+        }
+    }
+}
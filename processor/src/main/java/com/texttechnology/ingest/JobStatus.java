@@ -0,0 +1,15 @@
+package com.texttechnology.ingest;
+
+/**
+ * Lifecycle of an {@link IngestionJob}
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    /**
+     * The drama was already stored from a TEI with the same content hash
+     */
+    SKIPPED,
+    FAILED
+}
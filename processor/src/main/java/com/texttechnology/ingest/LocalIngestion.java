@@ -0,0 +1,97 @@
+package com.texttechnology.ingest;
+
+import com.texttechnology.source.LocalPaths;
+import com.texttechnology.source.PlaySource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ingests every play of a local directory or zip/tar archive, without DraCor or eXist-db in the loop.
+ * <p>
+ * One thread streams the plays out of the source while up to {@code processor.local.workers} plays are
+ * extracted and written in parallel; the reader waits for a free worker before reading the next play,
+ * so at most that many plays are held in memory. Only one local ingestion runs at a time.
+ */
+@Slf4j
+@ApplicationScoped
+public class LocalIngestion {
+
+    @Inject
+    DramaIngestion dramaIngestion;
+
+    @Inject
+    @ConfigProperty(name = "processor.local.workers", defaultValue = "4")
+    int workers;
+
+    @Inject
+    @ConfigProperty(name = "processor.local.directory", defaultValue = "plays")
+    String inputRoot;
+
+    private final AtomicReference<LocalIngestionJob> currentJob = new AtomicReference<>();
+
+    /**
+     * Start ingesting in the background
+     *
+     * @param path local directory or zip, tar or gzipped tar archive of {@code <name>.xml} plays within
+     *             {@code processor.local.directory}
+     * @return the started ingestion, empty if another local ingestion is running
+     * @throws IllegalArgumentException if the path leads out of {@code processor.local.directory}
+     */
+    public Optional<LocalIngestionJob> start(String path) {
+        PlaySource source = PlaySource.open(LocalPaths.resolve(inputRoot, path));
+        LocalIngestionJob job = new LocalIngestionJob(path);
+        LocalIngestionJob running = currentJob.get();
+        if ((running != null && running.getFinishedAt() == null) || !currentJob.compareAndSet(running, job)) {
+            try {
+                source.close();
+            } catch (Exception e) {
+                log.warn("Could not close play source {}: {}", path, e.getMessage());
+            }
+            return Optional.empty();
+        }
+        Thread.ofVirtual().name("local-ingestion").start(() -> ingest(job, source));
+        return Optional.of(job);
+    }
+
+    /**
+     * @return the running or last local ingestion
+     */
+    public Optional<LocalIngestionJob> getCurrentJob() {
+        return Optional.ofNullable(currentJob.get());
+    }
+
+    private void ingest(LocalIngestionJob job, PlaySource source) {
+        Semaphore idleWorkers = new Semaphore(workers);
+        job.start();
+        log.info("Ingesting plays from {} with {} workers", job.getSource(), workers);
+        try (source) {
+            source.forEachPlay((name, playXML) -> {
+                idleWorkers.acquire();
+                job.read();
+                Thread.ofVirtual().name("local-ingestion-" + name).start(() -> {
+                    try {
+                        job.ingested(dramaIngestion.ingestLocal(name, playXML));
+                    } catch (Exception e) {
+                        log.error("Error ingesting play {}", name, e);
+                        job.failed();
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            });
+            idleWorkers.acquire(workers);
+            job.complete();
+            log.info("Ingested {} plays from {}, {} unchanged, {} failed",
+                    job.getIngested(), job.getSource(), job.getSkipped(), job.getFailed());
+        } catch (Exception e) {
+            log.error("Error ingesting plays from {}", job.getSource(), e);
+            job.fail(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.texttechnology.ingest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the ingestion of all plays of a local directory or archive
+ */
+@Getter
+@ToString
+public class LocalIngestionJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String source;
+    private final Instant submittedAt = Instant.now();
+    private volatile JobStatus status = JobStatus.QUEUED;
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger read = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger ingested = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger skipped = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    LocalIngestionJob(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @return number of plays read from the source so far
+     */
+    public int getRead() {
+        return read.get();
+    }
+
+    /**
+     * @return number of plays inserted into Neo4J so far
+     */
+    public int getIngested() {
+        return ingested.get();
+    }
+
+    /**
+     * @return number of plays skipped so far because they were stored from the same TEI
+     */
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return number of plays that could not be ingested so far
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = JobStatus.COMPLETED;
+    }
+
+    void read() {
+        read.incrementAndGet();
+    }
+
+    void ingested(boolean ingested) {
+        (ingested ? this.ingested : skipped).incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void fail(Exception e) {
+        finishedAt = Instant.now();
+        error = e.toString();
+        status = JobStatus.FAILED;
+    }
+}
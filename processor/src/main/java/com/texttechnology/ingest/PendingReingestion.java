@@ -0,0 +1,36 @@
+package com.texttechnology.ingest;
+
+import com.texttechnology.DramaRepository;
+import com.texttechnology.SchemaReady;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Queues the dramas a schema migration flagged for re-ingestion, once the schema is ready.
+ * <p>
+ * A drama stays flagged until it is ingested again, so dramas rejected by a full queue are retried on the next start.
+ */
+@Slf4j
+@ApplicationScoped
+public class PendingReingestion {
+
+    @Inject
+    DramaRepository dramaRepository;
+
+    @Inject
+    IngestionQueue ingestionQueue;
+
+    void onSchemaReady(@Observes SchemaReady event) {
+        List<String> sources = dramaRepository.getSourcesRequiringReingest();
+        if (sources.isEmpty()) return;
+        log.info("Re-ingesting {} dramas flagged by the schema migration", sources.size());
+        // Without a content hash the dramas are processed even though their TEI is unchanged
+        sources.forEach(source -> ingestionQueue.submit(source, null).ifPresentOrElse(
+                job -> log.debug("Queued re-ingestion of drama {} as job {}", source, job.getId()),
+                () -> log.warn("Could not queue re-ingestion of drama {}, it is retried on the next start", source)));
+    }
+}
@@ -0,0 +1,185 @@
+package com.texttechnology.lines;
+
+import com.texttechnology.graph.DramaGraph;
+import com.texttechnology.source.PlaySource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Lines of the dramas stored outside of the graph with {@link com.texttechnology.graph.LineStorage#EXTERNAL}.
+ * <p>
+ * All lines of a drama are written in the order of its speaker rows into one file, named by the hash of its title,
+ * so a {@code SPEAKS_IN} relationship only refers to its lines by their offset and count. The lines are compressed
+ * in blocks of {@value #BLOCK_LINES}, whose positions are indexed in the header of the file, so reading the lines of
+ * a speaker only decompresses the blocks they are in rather than the whole drama.
+ */
+@Slf4j
+@ApplicationScoped
+public class LineStore {
+
+    private static final int MAGIC = 0x4c494e32;
+    private static final int BLOCK_LINES = 256;
+    /**
+     * Magic, number of lines and lines per block, followed by the position of each block and the end of the last
+     */
+    private static final int HEADER = 3 * Integer.BYTES;
+
+    private final Path directory;
+
+    @Inject
+    public LineStore(@ConfigProperty(name = "processor.lines.directory", defaultValue = "lines") String directory) {
+        this.directory = Path.of(directory).toAbsolutePath();
+    }
+
+    /**
+     * Replace the lines of the drama
+     *
+     * @param graph rows of the drama, built with {@link com.texttechnology.graph.LineStorage#EXTERNAL}
+     */
+    public void write(DramaGraph graph) {
+        Path file = file(graph.getDramaTitle());
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            int total = graph.getSpeakerLines().stream().mapToInt(List::size).sum();
+            int blocks = (total + BLOCK_LINES - 1) / BLOCK_LINES;
+            long[] positions = new long[blocks + 1];
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                positions[0] = HEADER + Long.BYTES * (blocks + 1L);
+                channel.position(positions[0]);
+                ByteArrayOutputStream block = new ByteArrayOutputStream(64 * 1024);
+                DataOutputStream out = new DataOutputStream(block);
+                int written = 0;
+                for (List<String> lines : graph.getSpeakerLines()) {
+                    for (String line : lines) {
+                        byte[] bytes = (line != null ? line : "").getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                        if (++written % BLOCK_LINES == 0) positions[written / BLOCK_LINES] = writeBlock(channel, block);
+                    }
+                }
+                if (written % BLOCK_LINES != 0) positions[blocks] = writeBlock(channel, block);
+
+                ByteBuffer header = ByteBuffer.allocate((int) positions[0]).putInt(MAGIC).putInt(total).putInt(BLOCK_LINES);
+                for (long position : positions) header.putLong(position);
+                header.flip();
+                while (header.hasRemaining()) channel.write(header, header.position());
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Stored lines of drama {} in {}", graph.getDramaTitle(), file.getFileName());
+        } catch (IOException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // best effort, a leftover temporary file only wastes space
+                }
+            }
+            throw new UncheckedIOException("Could not store the lines of drama " + graph.getDramaTitle(), e);
+        }
+    }
+
+    /**
+     * Only the blocks holding the lines are read and decompressed
+     *
+     * @param dramaTitle title of the drama
+     * @param offset     of the first line in the lines of the drama
+     * @param count      number of lines
+     * @return the lines, empty if no lines are stored for the drama
+     */
+    public Optional<List<String>> read(String dramaTitle, long offset, int count) {
+        Path file = file(dramaTitle);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.wrap(readBytes(channel, 0, HEADER));
+            if (header.getInt() != MAGIC) throw new IOException("Not a line file: " + file);
+            int total = header.getInt();
+            int blockLines = header.getInt();
+            if (offset < 0 || count < 0 || offset + count > total) {
+                throw new IllegalArgumentException("Lines " + offset + " to " + (offset + count) + " of drama " + dramaTitle + " with " + total + " lines");
+            }
+            List<String> lines = new ArrayList<>(count);
+            if (count == 0) return Optional.of(lines);
+
+            int first = (int) (offset / blockLines);
+            int last = (int) ((offset + count - 1) / blockLines);
+            ByteBuffer index = ByteBuffer.wrap(readBytes(channel, HEADER + (long) Long.BYTES * first, Long.BYTES * (last - first + 2)));
+            long[] positions = new long[last - first + 2];
+            for (int i = 0; i < positions.length; i++) positions[i] = index.getLong();
+            byte[] compressed = readBytes(channel, positions[0], (int) (positions[positions.length - 1] - positions[0]));
+
+            // Position of the next line to read within its block
+            int position = (int) (offset - (long) first * blockLines);
+            for (int block = first; block <= last; block++) {
+                int start = (int) (positions[block - first] - positions[0]);
+                int length = (int) (positions[block - first + 1] - positions[block - first]);
+                try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed, start, length)))) {
+                    for (int i = 0; i < position; i++) {
+                        in.skipNBytes(in.readInt());
+                    }
+                    int inBlock = (int) Math.min(blockLines, total - (long) block * blockLines);
+                    for (int i = position; i < inBlock && lines.size() < count; i++) {
+                        lines.add(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8));
+                    }
+                }
+                position = 0;
+            }
+            return Optional.of(lines);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compress the lines written to the block into the file, and empty the block
+     *
+     * @return position of the end of the block in the file
+     */
+    private static long writeBlock(FileChannel channel, ByteArrayOutputStream block) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.size() / 2);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            block.writeTo(out);
+        }
+        block.reset();
+        ByteBuffer bytes = ByteBuffer.wrap(compressed.toByteArray());
+        while (bytes.hasRemaining()) channel.write(bytes);
+        return channel.position();
+    }
+
+    private static byte[] readBytes(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Truncated line file");
+        }
+        return buffer.array();
+    }
+
+    private Path file(String dramaTitle) {
+        return directory.resolve(PlaySource.contentHash(dramaTitle) + ".lines");
+    }
+}
@@ -0,0 +1,51 @@
+package com.texttechnology.source;
+
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Plays stored as {@code <name>.xml} files in a local directory, read through memory-mapped files
+ */
+public class DirectoryPlaySource implements PlaySource {
+
+    private final Path directory;
+
+    public DirectoryPlaySource(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<String> names() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> PlaySource.playName(file.getFileName().toString()))
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * The file is mapped rather than read, so it is hashed and parsed from the page cache
+     * without ever being held on the heap as a whole; the mapping stays valid after the file is closed
+     */
+    @Override
+    @SneakyThrows
+    public ByteBuffer read(String name) {
+        try (FileChannel channel = FileChannel.open(directory.resolve(name + ".xml"), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.texttechnology.source;
+
+import lombok.SneakyThrows;
+import restclients.ExistDbRestClient;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays inserted into the {@code plays} collection of eXist-db by the scraper
+ */
+public class ExistPlaySource implements PlaySource {
+
+    private static final String EXIST_NS = "http://exist.sourceforge.net/NS/exist";
+    private static final String XML_SUFFIX = ".xml";
+
+    private final ExistDbRestClient existDbRestClient;
+
+    public ExistPlaySource(ExistDbRestClient existDbRestClient) {
+        this.existDbRestClient = existDbRestClient;
+    }
+
+    /**
+     * @return names of the {@code exist:resource} entries of the collection listing, without their extension
+     */
+    @Override
+    @SneakyThrows
+    public List<String> names() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(existDbRestClient.getAllInsertedPlays()));
+        List<String> names = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && EXIST_NS.equals(reader.getNamespaceURI()) && "resource".equals(reader.getLocalName())) {
+                    String name = reader.getAttributeValue(null, "name");
+                    if (name != null && name.endsWith(XML_SUFFIX)) {
+                        names.add(name.substring(0, name.length() - XML_SUFFIX.length()));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return names;
+    }
+
+    /**
+     * The TEI is read as it was sent, so it is neither decoded nor encoded again before it is hashed and parsed
+     */
+    @Override
+    @SneakyThrows
+    public ByteBuffer read(String name) {
+        try (InputStream playXML = existDbRestClient.streamPlayXML(name)) {
+            return ByteBuffer.wrap(playXML.readAllBytes());
+        }
+    }
+}
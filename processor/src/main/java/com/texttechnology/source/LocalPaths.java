@@ -0,0 +1,27 @@
+package com.texttechnology.source;
+
+import java.nio.file.Path;
+
+/**
+ * Paths on the processor host named by requests, which are confined to a configured directory
+ */
+public final class LocalPaths {
+
+    private LocalPaths() {
+    }
+
+    /**
+     * @param root directory the path has to stay within
+     * @param path path relative to the root, or absolute within it; null for the root itself
+     * @return the absolute, normalized path
+     * @throws IllegalArgumentException if the path leads out of the root
+     */
+    public static Path resolve(String root, String path) {
+        Path rootPath = Path.of(root).toAbsolutePath().normalize();
+        Path resolved = path != null ? rootPath.resolve(path).normalize() : rootPath;
+        if (!resolved.startsWith(rootPath)) {
+            throw new IllegalArgumentException("Not within " + rootPath + ": " + path);
+        }
+        return resolved;
+    }
+}
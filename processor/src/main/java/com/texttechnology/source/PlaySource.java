@@ -0,0 +1,114 @@
+package com.texttechnology.source;
+
+import lombok.SneakyThrows;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Where the TEI of plays is read from
+ */
+public interface PlaySource extends AutoCloseable {
+
+    /**
+     * @return names of all plays available from the source
+     */
+    List<String> names();
+
+    /**
+     * @param name of a play returned by {@link #names()}
+     * @return bytes of the TEI XML of the play, from the position to the limit of the buffer
+     */
+    ByteBuffer read(String name);
+
+    /**
+     * Pass every play of the source to the consumer, one after the other; sources that can only be read
+     * sequentially read each play exactly once here
+     *
+     * @param consumer of the name and TEI of each play
+     */
+    default void forEachPlay(PlayConsumer consumer) throws Exception {
+        for (String name : names()) {
+            consumer.accept(name, read(name));
+        }
+    }
+
+    @Override
+    default void close() throws Exception {
+    }
+
+    /**
+     * @param path local directory of {@code <name>.xml} files, or a zip, tar or gzipped tar archive of them
+     * @return the source reading the plays at the path
+     */
+    static PlaySource open(Path path) {
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("No such directory or archive: " + path);
+        }
+        if (Files.isDirectory(path)) {
+            return new DirectoryPlaySource(path);
+        }
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".zip")) {
+            return new ZipPlaySource(path);
+        }
+        if (fileName.endsWith(".tar") || fileName.endsWith(".tar.gz") || fileName.endsWith(".tgz")) {
+            return new TarPlaySource(path);
+        }
+        throw new IllegalArgumentException("Not a directory, zip or tar archive: " + path);
+    }
+
+    /**
+     * Consumer of a play read from a source
+     */
+    @FunctionalInterface
+    interface PlayConsumer {
+        void accept(String name, ByteBuffer playXML) throws Exception;
+    }
+
+    /**
+     * Same hash as computed by the scraper, so that plays loaded from anywhere are skipped when unchanged
+     *
+     * @param playXML bytes of the TEI XML of a play, hashed without moving the position of the buffer
+     * @return hex SHA-256 of the bytes of the TEI
+     */
+    @SneakyThrows
+    static String contentHash(ByteBuffer playXML) {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(playXML.duplicate());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param text TEI XML String of a play, or any other text
+     * @return hex SHA-256 of the UTF-8 bytes of the text
+     */
+    static String contentHash(String text) {
+        return contentHash(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param playXML bytes of the TEI XML of a play, read without moving the position of the buffer
+     * @return stream of the bytes, to be parsed by {@link com.texttechnology.extraction.ExtractionMode#parse(InputStream)}
+     */
+    static InputStream stream(ByteBuffer playXML) {
+        return new ByteBufferInputStream(playXML);
+    }
+
+    /**
+     * @param entryName path of a file within a directory or archive
+     * @return name of the play in the file, null if it is not an XML file
+     */
+    static String playName(String entryName) {
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        if (!fileName.endsWith(".xml") || fileName.length() == ".xml".length()) return null;
+        return fileName.substring(0, fileName.length() - ".xml".length());
+    }
+}
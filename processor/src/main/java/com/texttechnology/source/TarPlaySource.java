@@ -0,0 +1,190 @@
+package com.texttechnology.source;
+
+import lombok.SneakyThrows;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Plays stored as {@code <name>.xml} entries of a tar archive, optionally gzipped.
+ * <p>
+ * A tar archive can only be read sequentially, so {@link #forEachPlay} reads it in a single streaming pass,
+ * holding one play at a time; reading a single play by name scans the archive up to it.
+ * Reads ustar and GNU long name headers, other entries are skipped.
+ */
+public class TarPlaySource implements PlaySource {
+
+    private static final int BLOCK = 512;
+
+    private final Path archive;
+
+    public TarPlaySource(Path archive) {
+        if (!Files.isRegularFile(archive)) {
+            throw new IllegalArgumentException("Not a file: " + archive);
+        }
+        this.archive = archive;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<String> names() {
+        List<String> names = new ArrayList<>();
+        scan((name, content) -> {
+            names.add(name);
+            return false;
+        });
+        return names;
+    }
+
+    @Override
+    @SneakyThrows
+    public ByteBuffer read(String name) {
+        ByteBuffer[] playXML = new ByteBuffer[1];
+        scan((entryName, content) -> {
+            if (!entryName.equals(name)) return false;
+            playXML[0] = ByteBuffer.wrap(content.readAllBytes());
+            return true;
+        });
+        if (playXML[0] == null) {
+            throw new IllegalArgumentException("No play " + name + " in " + archive);
+        }
+        return playXML[0];
+    }
+
+    @Override
+    public void forEachPlay(PlayConsumer consumer) throws Exception {
+        scan((name, content) -> {
+            consumer.accept(name, ByteBuffer.wrap(content.readAllBytes()));
+            return false;
+        });
+    }
+
+    /**
+     * Visitor of the XML entries of the archive, returns true to stop scanning
+     */
+    @FunctionalInterface
+    private interface EntryVisitor {
+        boolean visit(String name, InputStream content) throws Exception;
+    }
+
+    private void scan(EntryVisitor visitor) throws Exception {
+        try (InputStream in = open()) {
+            byte[] header = new byte[BLOCK];
+            String longName = null;
+            while (readBlock(in, header) && !isZero(header)) {
+                long size = octal(header, 124, 12);
+                char type = (char) header[156];
+                long padded = (size + BLOCK - 1) / BLOCK * BLOCK;
+                if (type == 'L') {
+                    longName = new String(in.readNBytes((int) size), StandardCharsets.UTF_8).replace("\0", "");
+                    in.skipNBytes(padded - size);
+                    continue;
+                }
+                String entryName = longName != null ? longName : entryName(header);
+                longName = null;
+                String name = type == '0' || type == '\0' ? PlaySource.playName(entryName) : null;
+                if (name == null) {
+                    in.skipNBytes(padded);
+                    continue;
+                }
+                BoundedInputStream content = new BoundedInputStream(in, size);
+                if (visitor.visit(name, content)) return;
+                in.skipNBytes(content.remaining() + padded - size);
+            }
+        }
+    }
+
+    private InputStream open() throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(archive), 64 * 1024);
+        String fileName = archive.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".gz") || fileName.endsWith(".tgz") ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int read = in.readNBytes(block, 0, BLOCK);
+        if (read == 0) return false;
+        if (read < BLOCK) throw new EOFException("Truncated tar header");
+        return true;
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return name of the entry, prefixed by the ustar prefix field if present
+     */
+    private static String entryName(byte[] header) {
+        String name = string(header, 0, 100);
+        boolean ustar = string(header, 257, 6).startsWith("ustar");
+        String prefix = ustar ? string(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String string(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long octal(byte[] header, int offset, int length) {
+        long value = 0;
+        int i = offset;
+        while (i < offset + length && header[i] == ' ') i++;
+        for (; i < offset + length && header[i] >= '0' && header[i] <= '7'; i++) {
+            value = value * 8 + (header[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Content of one entry, which leaves the rest of the archive unread
+     */
+    private static class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        long remaining() {
+            return remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
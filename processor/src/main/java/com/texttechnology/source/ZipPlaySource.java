@@ -0,0 +1,55 @@
+package com.texttechnology.source;
+
+import lombok.SneakyThrows;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Plays stored as {@code <name>.xml} entries of a zip archive, in any directory of it
+ */
+public class ZipPlaySource implements PlaySource {
+
+    private final ZipFile zipFile;
+    private final Map<String, ZipEntry> entries = new LinkedHashMap<>();
+
+    @SneakyThrows
+    public ZipPlaySource(Path archive) {
+        this.zipFile = new ZipFile(archive.toFile(), StandardCharsets.UTF_8);
+        zipFile.stream()
+                .filter(entry -> !entry.isDirectory())
+                .forEach(entry -> {
+                    String name = PlaySource.playName(entry.getName());
+                    if (name != null) entries.putIfAbsent(name, entry);
+                });
+    }
+
+    @Override
+    public List<String> names() {
+        return List.copyOf(entries.keySet());
+    }
+
+    @Override
+    @SneakyThrows
+    public ByteBuffer read(String name) {
+        ZipEntry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("No play " + name + " in " + zipFile.getName());
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        zipFile.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.texttechnology.extraction;
+
+import com.texttechnology.data.drama.Cast;
+import com.texttechnology.data.drama.Drama;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * The StAX extraction has to yield the same drama as the DOM extraction it replaces
+ */
+class StreamingDramaDataExtractionTest {
+
+    private static final Path SAMPLES = Path.of("..", "samples");
+
+    private static final String CAST_WITHOUT_NAME = """
+            <TEI xmlns="http://www.tei-c.org/ns/1.0">
+                <teiHeader>
+                    <fileDesc>
+                        <titleStmt>
+                            <title>Nameless</title>
+                        </titleStmt>
+                    </fileDesc>
+                    <profileDesc>
+                        <particDesc>
+                            <listPerson>
+                                <person xml:id="first" sex="MALE">
+                                    <persName>First</persName>
+                                </person>
+                                <person xml:id="second" sex="FEMALE"/>
+                                <person xml:id="third" sex="UNKNOWN">
+                                    <persName>Third</persName>
+                                </person>
+                            </listPerson>
+                        </particDesc>
+                    </profileDesc>
+                </teiHeader>
+                <text>
+                    <body>
+                        <div xml:id="scene-1">
+                            <sp who="#first">
+                                <l>A line</l>
+                            </sp>
+                        </div>
+                    </body>
+                </text>
+            </TEI>
+            """;
+
+    /**
+     * Result of the query of {@link XQueryDramaExtraction} for {@link #CAST_WITHOUT_NAME}
+     */
+    private static final String CAST_WITHOUT_NAME_RESULT = """
+            <exist:result xmlns:exist="http://exist.sourceforge.net/NS/exist" exist:hits="1" exist:start="1" exist:count="1">
+                <drama size="1024">
+                    <forename/>
+                    <surname/>
+                    <persName/>
+                    <title>Nameless</title>
+                    <date/>
+                    <cast id="#first" sex="MALE"><name>First</name></cast>
+                    <cast id="#second" sex="FEMALE"/>
+                    <cast id="#third" sex="UNKNOWN"><name>Third</name></cast>
+                    <scene id="scene-1">
+                        <sp who="#first"/>
+                        <speaker who="#first"><l>A line</l></speaker>
+                    </scene>
+                </drama>
+            </exist:result>
+            """;
+
+    @Test
+    void extractsDramaLikeDom() throws IOException {
+        assertSameDrama("drama.xml");
+    }
+
+    @Test
+    void extractsAnonymousDramaLikeDom() throws IOException {
+        assertSameDrama("anon-a-larum-for-london.xml");
+    }
+
+    @Test
+    void keepsCastWithoutName() {
+        Drama stax = ExtractionMode.STAX.parse(CAST_WITHOUT_NAME).get();
+        Drama dom = ExtractionMode.DOM.parse(CAST_WITHOUT_NAME).get();
+
+        assertThat(stax.getCastList().stream().map(Cast::getId).toList(), contains("#first", "#second", "#third"));
+        assertThat(stax.getCastList().get(1).getName(), is(nullValue()));
+        assertThat(stax.getCastList().get(1).getSex(), is("FEMALE"));
+        assertThat(dom, equalTo(stax));
+    }
+
+    @Test
+    void keepsCastWithoutNameInXQuery() {
+        Drama xquery = new XQueryDramaExtraction(CAST_WITHOUT_NAME_RESULT).extractData();
+        Drama stax = ExtractionMode.STAX.parse(CAST_WITHOUT_NAME).get();
+
+        assertThat(xquery.getCastList().get(1).getName(), is(nullValue()));
+        assertThat(xquery, equalTo(stax));
+    }
+
+    private static void assertSameDrama(String sample) throws IOException {
+        Drama dom;
+        try (InputStream playXML = Files.newInputStream(SAMPLES.resolve(sample))) {
+            dom = ExtractionMode.DOM.parse(playXML).get();
+        }
+        Drama stax;
+        try (InputStream playXML = Files.newInputStream(SAMPLES.resolve(sample))) {
+            stax = ExtractionMode.STAX.parse(playXML).get();
+        }
+
+        assertThat(dom.getCastList(), is(not(nullValue())));
+        assertThat(stax, equalTo(dom));
+    }
+}
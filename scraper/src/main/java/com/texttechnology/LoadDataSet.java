@@ -8,6 +8,7 @@ import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,8 @@ import restclients.DracorRestClient;
 import restclients.ExistDbRestClient;
 import restclients.ProcessorRestClient;
 
+import java.io.InputStream;
+
 @Path("/load")
 @RequestScoped
 @Slf4j
@@ -37,6 +40,9 @@ public class LoadDataSet {
     @RestClient
     ProcessorRestClient processorRestClient;
 
+    @Inject
+    LoadPipeline loadPipeline;
+
     @Inject
     @ConfigProperty(name = "processor/mp-rest/url")
     String endpointUrl;
@@ -77,40 +83,36 @@ public class LoadDataSet {
     /**
      * API Endpoint to handle the request to load all the data from Dracor
      *
-     * @return REST Response
+     * @param limit optional maximum number of plays to load
+     * @return REST Response with the timings and failures of every play
      */
     @PUT
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response loadEntireDataSet() {
+    public Response loadEntireDataSet(@QueryParam("limit") Integer limit) {
         log.info("Getting details of all plays");
-        JsonArrayBuilder playDetails = Json.createArrayBuilder();
 
-        // Requests Dracor for all the plays and for each retrieve the XML content and inserts it into the eXist DB
-        dracorRestClient.getAllPlayDetails()
+        // Requests Dracor for all the plays and loads them through the download, insert and process stages
+        var plays = dracorRestClient.getAllPlayDetails()
                 .getJsonArray("plays")
                 .stream()
                 .map(JsonValue::asJsonObject)
                 .map(jsonObject -> jsonObject.getString("name"))
-                .limit(30)
-                .peek(play -> log.info("Loading play: {}", play))
-                .forEach(play -> {
-                    playDetails.add(play);
-                    insertPlayToExistDb(play);
-                    processorRestClient.process(play);
-                });
+                .limit(limit != null ? limit : Long.MAX_VALUE)
+                .toList();
         return Response.ok()
-                .entity(playDetails.build())
+                .entity(loadPipeline.load(plays))
                 .build();
     }
 
 
     /**
-     * Insert the play to existDb
+     * Insert the play to existDb, piping the TEI from DraCor straight into the request to eXist-DB
      * @param play Name of the play
      */
     private void insertPlayToExistDb(String play) {
-        try (Response r = existDbRestClient.insertPlay(play, dracorRestClient.getTeiForPlay(play))) {
+        try (InputStream tei = dracorRestClient.getTeiForPlay(play);
+             Response r = existDbRestClient.insertPlay(play, tei)) {
             log.info("Response Status: {}", r.getStatus());
             log.info("Response Body : {}", r.readEntity(String.class));
         } catch (Exception e) {
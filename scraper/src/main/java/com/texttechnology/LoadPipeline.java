@@ -0,0 +1,265 @@
+package com.texttechnology;
+
+import com.texttechnology.PlayLoadResult.Stage;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import restclients.DracorRestClient;
+import restclients.ExistDbRestClient;
+import restclients.IngestionJobStatus;
+import restclients.ProcessorRestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Loads plays through three concurrent stages: TEI download from DraCor, insert into eXist-DB and processing,
+ * which queues the play in the processor and waits until its ingestion job has finished.
+ * <p>
+ * Every play runs on its own virtual thread and passes the stages in order, while each stage admits only its
+ * configured number of plays at a time, so different plays are downloaded, inserted and processed simultaneously.
+ * At most as many plays as all stages together admit are in flight.
+ * <p>
+ * The TEI is never held in memory: the download is spooled to a temporary file while its hash is computed,
+ * and the insert streams that file to eXist-DB.
+ * <p>
+ * Plays whose TEI has the same content hash as recorded by the processor for the processed drama are skipped
+ * after the download, changed plays are inserted and processed with their new hash.
+ */
+@Slf4j
+@ApplicationScoped
+public class LoadPipeline {
+
+    @Inject
+    @RestClient
+    DracorRestClient dracorRestClient;
+
+    @Inject
+    @RestClient
+    ExistDbRestClient existDbRestClient;
+
+    @Inject
+    @RestClient
+    ProcessorRestClient processorRestClient;
+
+    @Inject
+    @ConfigProperty(name = "scraper.load.download-concurrency", defaultValue = "4")
+    int downloadConcurrency;
+
+    @Inject
+    @ConfigProperty(name = "scraper.load.insert-concurrency", defaultValue = "2")
+    int insertConcurrency;
+
+    @Inject
+    @ConfigProperty(name = "scraper.load.process-concurrency", defaultValue = "2")
+    int processConcurrency;
+
+    @Inject
+    @ConfigProperty(name = "scraper.load.process-poll-interval", defaultValue = "500")
+    long processPollMillis;
+
+    private Semaphore inFlight;
+    private Semaphore downloads;
+    private Semaphore inserts;
+    private Semaphore processing;
+
+    @PostConstruct
+    void createStages() {
+        downloads = new Semaphore(downloadConcurrency);
+        inserts = new Semaphore(insertConcurrency);
+        processing = new Semaphore(processConcurrency);
+        inFlight = new Semaphore(downloadConcurrency + insertConcurrency + processConcurrency);
+    }
+
+    /**
+     * Load the plays and wait until all of them are loaded or have failed
+     *
+     * @param plays IDs of the plays in DraCor
+     * @return summary with the timings and failures of every play
+     */
+    public LoadSummary load(List<String> plays) {
+        long start = System.nanoTime();
+        Map<String, String> manifest = getManifest();
+        List<PlayLoadResult> results;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PlayLoadResult>> futures = plays.stream()
+                    .map(play -> executor.submit(() -> loadPlay(play, manifest.get(play))))
+                    .toList();
+            results = futures.stream().map(LoadPipeline::await).toList();
+        }
+        long loaded = results.stream().filter(PlayLoadResult::isLoaded).count();
+        long skipped = results.stream().filter(PlayLoadResult::isSkipped).count();
+        LoadSummary summary = new LoadSummary(plays.size(), loaded, skipped, plays.size() - loaded, millisSince(start), results);
+        log.info("Loaded {} of {} plays ({} unchanged) in {} ms", summary.getLoaded(), summary.getTotal(), skipped, summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * @return content hashes of the processed dramas, empty if the processor cannot provide them
+     */
+    private Map<String, String> getManifest() {
+        try {
+            return processorRestClient.getManifest();
+        } catch (Exception e) {
+            log.warn("Could not get the manifest of processed dramas, loading all plays : {}", e.toString());
+            return Map.of();
+        }
+    }
+
+    private PlayLoadResult loadPlay(String play, String processedHash) throws InterruptedException {
+        PlayLoadResult result = new PlayLoadResult(play);
+        long start = System.nanoTime();
+        inFlight.acquire();
+        SpooledTei spooled = null;
+        try {
+            log.info("Loading play: {}", play);
+            long stageStart = System.nanoTime();
+            spooled = runStage(result, Stage.DOWNLOAD, downloads, () -> download(play));
+            result.setDownloadMillis(millisSince(stageStart));
+
+            String contentHash = spooled.contentHash();
+            result.setContentHash(contentHash);
+            if (contentHash.equals(processedHash)) {
+                log.info("Skipping unchanged play: {}", play);
+                result.setSkipped(true);
+                result.setLoaded(true);
+                return result;
+            }
+
+            stageStart = System.nanoTime();
+            Path tei = spooled.file();
+            runStage(result, Stage.INSERT, inserts, () -> insertPlay(play, tei));
+            result.setInsertMillis(millisSince(stageStart));
+
+            stageStart = System.nanoTime();
+            runStage(result, Stage.PROCESS, processing, () -> process(play, contentHash));
+            result.setProcessMillis(millisSince(stageStart));
+
+            result.setLoaded(true);
+        } catch (StageFailedException e) {
+            log.error("Error loading play {} in stage {} : {}", play, result.getFailedStage(), result.getError());
+        } finally {
+            if (spooled != null) delete(spooled.file());
+            inFlight.release();
+            result.setTotalMillis(millisSince(start));
+            log.info("Finished loading play: {}", play);
+        }
+        return result;
+    }
+
+    /**
+     * Run a stage once one of its permits is available, recording the failure on the result
+     */
+    private <T> T runStage(PlayLoadResult result, Stage stage, Semaphore permits, Callable<T> work) throws InterruptedException {
+        permits.acquire();
+        try {
+            return work.call();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            result.setFailedStage(stage);
+            result.setError(e.toString());
+            throw new StageFailedException();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Spool the TEI of a play into a temporary file, hashing its bytes as they are written
+     */
+    private SpooledTei download(String play) throws IOException, NoSuchAlgorithmException {
+        Path file = Files.createTempFile("tei-", ".xml");
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream tei = new DigestInputStream(dracorRestClient.getTeiForPlay(play), digest)) {
+            Files.copy(tei, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+        return new SpooledTei(file, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private Void insertPlay(String play, Path file) throws IOException {
+        try (InputStream tei = Files.newInputStream(file);
+             Response r = existDbRestClient.insertPlay(play, tei)) {
+            log.info("Response Status: {}", r.getStatus());
+            if (r.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new IllegalStateException("eXist-DB responded " + r.getStatus() + " : " + r.readEntity(String.class));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queue the play in the processor and poll its ingestion job, so that the stage lasts until the play is ingested
+     */
+    private Void process(String play, String contentHash) throws InterruptedException {
+        IngestionJobStatus job = processorRestClient.process(play, contentHash);
+        while (!job.finished()) {
+            Thread.sleep(processPollMillis);
+            job = processorRestClient.getJob(job.id());
+        }
+        if (job.failed()) {
+            throw new IllegalStateException("Processor job " + job.id() + " failed : " + job.error());
+        }
+        return null;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled TEI {} : {}", file, e.toString());
+        }
+    }
+
+    private static PlayLoadResult await(Future<PlayLoadResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading plays", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error loading plays", e.getCause());
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Downloaded TEI of a play with the hex encoded SHA-256 of its bytes
+     */
+    private record SpooledTei(Path file, String contentHash) {
+    }
+
+    /**
+     * Stops a play at the failed stage; the failure itself is recorded on its {@link PlayLoadResult}
+     */
+    private static class StageFailedException extends RuntimeException {
+        StageFailedException() {
+            super(null, null, false, false);
+        }
+    }
+}
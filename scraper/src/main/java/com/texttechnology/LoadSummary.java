@@ -0,0 +1,18 @@
+package com.texttechnology;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Summary of a {@link LoadPipeline} run, with the result of every play
+ */
+@Data
+public class LoadSummary {
+    private final int total;
+    private final long loaded;
+    private final long skipped;
+    private final long failed;
+    private final long elapsedMillis;
+    private final List<PlayLoadResult> plays;
+}
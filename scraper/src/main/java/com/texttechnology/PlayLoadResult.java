@@ -0,0 +1,33 @@
+package com.texttechnology;
+
+import lombok.Data;
+
+/**
+ * Outcome of loading one play through the {@link LoadPipeline}, with the time spent in each stage
+ */
+@Data
+public class PlayLoadResult {
+
+    /**
+     * Stages a play passes through, in order
+     */
+    public enum Stage {
+        DOWNLOAD,
+        INSERT,
+        PROCESS
+    }
+
+    private final String play;
+    private boolean loaded;
+    /**
+     * The TEI has the same content hash as the processed drama, so it was neither inserted nor processed again
+     */
+    private boolean skipped;
+    private String contentHash;
+    private Stage failedStage;
+    private String error;
+    private long downloadMillis;
+    private long insertMillis;
+    private long processMillis;
+    private long totalMillis;
+}
@@ -1,15 +1,26 @@
 package com.texttechnology.visualizer;
 
+import com.texttechnology.visualizer.analytics.Communities;
+import com.texttechnology.visualizer.analytics.InteractionGraph;
+import com.texttechnology.visualizer.analytics.Layout;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
 import org.neo4j.driver.Values;
 
-import java.util.HashMap;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @ApplicationScoped
@@ -17,58 +28,245 @@ public class CharacterGraphRepository {
 
     private final Driver driver;
 
+    /**
+     * Dramas still being written by the processor are left out; dramas written before the status was recorded have none
+     */
     private static final String DRAMA_TITLES_QUERY = """
-            MATCH (d:Drama) RETURN d.title as title ORDER BY title
+            MATCH (d:Drama)
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = 'COMPLETE'
+            RETURN d.title as title ORDER BY title
             """;
 
-    private static final String CHARACTERS_QUERY = """
+    /**
+     * Nodes and links in a single round trip: the interactions first, then the characters, which the branches of
+     * a UNION ALL are returned in; the links are streamed as they arrive, the characters are only positioned once
+     * the whole graph was read
+     */
+    private static final String CHARACTER_GRAPH_QUERY = """
+            MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c1:Character)
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = 'COMPLETE'
+            MATCH (c1)-[r:INTERACTS_WITH]-(c2:Character)
+            WHERE c1.name < c2.name  // To avoid duplicate pairs
+            RETURN true AS link, c1.name AS source, c2.name AS target, null AS gender, null AS community, r.interactionCount AS value,
+                   CASE WHEN $sceneRange THEN r.sceneIndex END AS sceneIndex,
+                   CASE WHEN $sceneRange THEN r.cumulativeCount END AS cumulativeCount
+            UNION ALL
             MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c:Character)
-            RETURN c.name as name, c.sex as gender
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = 'COMPLETE'
+            RETURN false AS link, c.name AS source, null AS target, c.sex AS gender, c.community AS community, null AS value,
+                   null AS sceneIndex, null AS cumulativeCount
             """;
 
-    private static final String CHARACTER_INTERACTION_QUERY = """
+    /**
+     * Like {@link #CHARACTER_GRAPH_QUERY}, with the scenes characters appear in together as links
+     */
+    private static final String CO_APPEARANCE_GRAPH_QUERY = """
+            MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c:Character)
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = 'COMPLETE'
+            RETURN false AS link, c.name AS source, null AS target, null AS value
+            UNION ALL
             MATCH (d:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c1:Character)
-            MATCH (c1)-[r:INTERACTS_WITH]-(c2:Character)
-            WHERE c1.name < c2.name  // To avoid duplicate pairs
-            RETURN c1.name as source, c2.name as target, r.interactionCount as value
+            WHERE d.ingestStatus IS NULL OR d.ingestStatus = 'COMPLETE'
+            MATCH (c1)-[r:APPEARS_WITH]-(c2:Character)
+            WHERE c1.name < c2.name
+            RETURN true AS link, c1.name AS source, c2.name AS target, r.coAppearanceCount AS value
+            """;
+
+    private static final String SCENES_QUERY = """
+            MATCH (d:Drama {title: $dramaTitle})-[:HAS_SCENE]->(s:Scene)
+            RETURN s.sceneId AS sceneId
+            ORDER BY s.ordinal
+            """;
+
+    private static final String UNWIND_COMMUNITIES = """
+            UNWIND $rows AS row
+            MATCH (:Drama {title: $dramaTitle})-[:HAS_CHARACTER]->(c:Character {name: row.name})
+            SET c.community = row.community
             """;
 
+    /**
+     * Relation between characters whose counts weigh the links of an {@link InteractionGraph}
+     */
+    public enum Relation {
+        INTERACTS_WITH(CHARACTER_GRAPH_QUERY),
+        APPEARS_WITH(CO_APPEARANCE_GRAPH_QUERY);
+
+        private final String query;
+
+        Relation(String query) {
+            this.query = query;
+        }
+
+        /**
+         * @param value name of the relation, case insensitive, {@code INTERACTS_WITH} if null
+         */
+        public static Relation of(String value) {
+            return value == null ? INTERACTS_WITH : valueOf(value.strip().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
     @Inject
     public CharacterGraphRepository(Driver driver) {
         this.driver = driver;
     }
 
     /**
-     * Get character interaction data for visualization
+     * Scenes by their ordinal
+     * @param from ordinal of the first scene
+     * @param to ordinal of the last scene, inclusive
+     */
+    public record SceneRange(int from, int to) {
+
+        /**
+         * Interactions of a link within the range: its count up to the last scene of the range less its count before
+         * the range, both looked up in the ascending scene ordinals the link's counts are accumulated at
+         * @param sceneIndex ordinals of the scenes the link occurred in
+         * @param cumulativeCount count of the link up to and including the scene at the same position
+         */
+        int count(Value sceneIndex, Value cumulativeCount) {
+            return cumulativeCountAt(sceneIndex, cumulativeCount, to) - cumulativeCountAt(sceneIndex, cumulativeCount, from - 1);
+        }
+
+        private static int cumulativeCountAt(Value sceneIndex, Value cumulativeCount, int scene) {
+            int low = 0;
+            int high = sceneIndex.size() - 1;
+            int found = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (sceneIndex.get(middle).asInt() <= scene) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found < 0 ? 0 : cumulativeCount.get(found).asInt();
+        }
+    }
+
+    /**
+     * Write character interaction data for visualization as JSON, as an object with the arrays {@code links} and
+     * {@code nodes}: the links record by record as they arrive, then the characters with their positions
+     * @param dramaTitle The title of the drama
+     * @param layout positions the characters of the whole graph of the drama
+     * @param out to write the JSON to, flushed but left open
+     */
+    public void writeCharacterInteractionGraph(String dramaTitle, Function<InteractionGraph, Layout> layout, Writer out) {
+        writeCharacterInteractionGraph(dramaTitle, null, layout, out);
+    }
+
+    /**
+     * Like {@link #writeCharacterInteractionGraph(String, Function, Writer)}, with the interactions within a range
+     * of scenes; all characters are kept, links without interactions in the range are left out
+     * @param dramaTitle The title of the drama
+     * @param sceneRange The scenes to count the interactions of, all if null
+     * @param layout positions the characters of the whole graph of the drama, whatever the range
+     * @param out to write the JSON to, flushed but left open
+     */
+    public void writeCharacterInteractionGraph(String dramaTitle, SceneRange sceneRange,
+                                               Function<InteractionGraph, Layout> layout, Writer out) {
+        try (Session session = driver.session()) {
+            JsonGenerator json = Json.createGenerator(out);
+            json.writeStartObject().writeStartArray("links");
+            InteractionGraph.Builder graph = InteractionGraph.builder();
+            List<Record> characters = new ArrayList<>();
+            Result result = session.run(CHARACTER_GRAPH_QUERY,
+                    Values.parameters("dramaTitle", dramaTitle, "sceneRange", sceneRange != null));
+            while (result.hasNext()) {
+                Record record = result.next();
+                if (!record.get("link").asBoolean()) {
+                    characters.add(record);
+                    graph.character(record.get("source").asString());
+                    continue;
+                }
+                String source = record.get("source").asString();
+                String target = record.get("target").asString();
+                int value = record.get("value").asInt(0);
+                graph.interaction(source, target, value);
+                if (sceneRange != null) {
+                    // Links written before the counts per scene were kept cannot be restricted to the range
+                    if (record.get("sceneIndex").isNull()) continue;
+                    value = sceneRange.count(record.get("sceneIndex"), record.get("cumulativeCount"));
+                    if (value == 0) continue;
+                }
+                json.writeStartObject()
+                        .write("source", source)
+                        .write("target", target)
+                        .write("value", value)
+                        .writeEnd();
+            }
+            json.writeEnd().writeStartArray("nodes");
+            Layout positions = layout.apply(graph.build());
+            for (Record record : characters) {
+                String name = record.get("source").asString();
+                json.writeStartObject()
+                        .write("id", name)
+                        .write("name", name)
+                        .write("gender", record.get("gender").asString("unknown"));
+                if (!record.get("community").isNull()) {
+                    json.write("community", record.get("community").asInt());
+                }
+                Layout.Point position = positions.get(name);
+                if (position != null) {
+                    json.write("x", position.x()).write("y", position.y());
+                }
+                json.writeEnd();
+            }
+            json.writeEnd().writeEnd().flush();
+        }
+    }
+
+    /**
+     * Load the interactions of a drama into a graph for analysis
      * @param dramaTitle The title of the drama
-     * @return A map containing nodes and links for the graph visualization
+     * @param relation The relation weighing the links
+     * @return The characters of the drama and their links
      */
-    public Map<String, Object> getCharacterInteractionGraph(String dramaTitle) {
+    public InteractionGraph getInteractionGraph(String dramaTitle, Relation relation) {
         try (Session session = driver.session()) {
-            // Get characters (nodes)
-            List<Map<String, Object>> nodes = session.run(CHARACTERS_QUERY, Values.parameters("dramaTitle", dramaTitle))
-                    .list(record -> Map.of(
-                            "id", record.get("name").asString(),
-                            "name", record.get("name").asString(),
-                            "gender", record.get("gender") != null ? record.get("gender").asString() : "unknown"
-                    ));
-            
-            // Get interactions (links)
-            List<Map<String, Object>> links = session.run(CHARACTER_INTERACTION_QUERY, Values.parameters("dramaTitle", dramaTitle))
-                    .list(record -> Map.of(
-                            "source", record.get("source").asString(),
-                            "target", record.get("target").asString(),
-                            "value", record.get("value").asInt()
-                    ));
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("nodes", nodes);
-            result.put("links", links);
-            
-            return result;
+            InteractionGraph.Builder graph = InteractionGraph.builder();
+            Result result = session.run(relation.query, Values.parameters("dramaTitle", dramaTitle, "sceneRange", false));
+            while (result.hasNext()) {
+                Record record = result.next();
+                if (record.get("link").asBoolean()) {
+                    graph.interaction(record.get("source").asString(), record.get("target").asString(),
+                            record.get("value").asInt(0));
+                } else {
+                    graph.character(record.get("source").asString());
+                }
+            }
+            return graph.build();
         }
     }
-    
+
+    /**
+     * @param dramaTitle The title of the drama
+     * @return IDs of the scenes of the drama in their order, the position of a scene is its ordinal
+     */
+    public List<String> getSceneIds(String dramaTitle) {
+        try (Session session = driver.session()) {
+            return session.run(SCENES_QUERY, Values.parameters("dramaTitle", dramaTitle))
+                    .list(record -> record.get("sceneId").asString());
+        }
+    }
+
+    /**
+     * Store the community of every character of a drama, returned with the graph from then on
+     * @param dramaTitle The title of the drama
+     * @param communities The communities of its characters
+     */
+    public void writeCommunities(String dramaTitle, Communities communities) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        communities.communities().forEach(community -> community.characters()
+                .forEach(name -> rows.add(Map.of("name", name, "community", community.id()))));
+        try (Session session = driver.session()) {
+            session.writeTransaction(tx -> {
+                tx.run(UNWIND_COMMUNITIES, Values.parameters("dramaTitle", dramaTitle, "rows", rows));
+                return null;
+            });
+        }
+    }
+
     /**
      * Get a list of all drama titles in the database
      * @return List of drama titles
@@ -1,14 +1,28 @@
 package com.texttechnology.visualizer;
 
+import com.texttechnology.visualizer.analytics.Centrality;
+import com.texttechnology.visualizer.analytics.ForceLayout;
+import com.texttechnology.visualizer.analytics.InteractionGraph;
+import com.texttechnology.visualizer.analytics.Layout;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.List;
-import java.util.Map;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 
 @Slf4j
 @Path("/api/graph")
@@ -16,22 +30,27 @@ import java.util.Map;
 public class CharacterGraphResource {
 
     private final CharacterGraphRepository repository;
+    private final GraphCache graphCache;
+    private final CommunityDetection communityDetection;
 
     @Inject
-    public CharacterGraphResource(CharacterGraphRepository repository) {
+    public CharacterGraphResource(CharacterGraphRepository repository, GraphCache graphCache,
+                                  CommunityDetection communityDetection) {
         this.repository = repository;
+        this.graphCache = graphCache;
+        this.communityDetection = communityDetection;
     }
 
     /**
+     * @param request to evaluate {@code If-None-Match} against
      * @return list of drama titles
      */
     @GET
     @Path("/dramas")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllDramas() {
+    public Response getAllDramas(@Context Request request) {
         try {
-            List<String> dramas = repository.getAllDramaTitles();
-            return Response.ok(dramas).build();
+            return cachedResponse(request, graphCache.getTitles(repository::getAllDramaTitles));
         } catch (Exception e) {
             log.error("Error fetching drama titles", e);
             return Response.serverError().entity("Error fetching drama titles: " + e.getMessage()).build();
@@ -40,18 +59,240 @@ public class CharacterGraphResource {
 
     /**
      * @param title name of a drama (user selects the drama from drop down)
+     * @param fromScene ordinal of the first scene to count interactions in, the first scene if only toScene is given
+     * @param toScene ordinal of the last scene to count interactions in, inclusive, the last scene if only fromScene is given
+     * @param request to evaluate {@code If-None-Match} against
      * @return  a character interaction graph for a drama from neo4j
      */
     @GET
     @Path("/drama/{title}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getDramaGraph(@PathParam("title") String title) {
+    public Response getDramaGraph(@PathParam("title") String title, @QueryParam("fromScene") Integer fromScene,
+                                  @QueryParam("toScene") Integer toScene, @Context Request request) {
+        if (fromScene != null || toScene != null) {
+            int from = fromScene != null ? fromScene : 0;
+            int to = toScene != null ? toScene : Integer.MAX_VALUE;
+            if (from < 0 || to < from) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Scene range must satisfy 0 <= fromScene <= toScene").build();
+            }
+            // Every range is answered from the counts per scene on the links, so ranges are not cached
+            CharacterGraphRepository.SceneRange sceneRange = new CharacterGraphRepository.SceneRange(from, to);
+            StreamingOutput body = output -> {
+                long generation = graphCache.generation();
+                Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                repository.writeCharacterInteractionGraph(title, sceneRange, layout(title, generation), out);
+                out.flush();
+            };
+            return Response.ok(body, MediaType.APPLICATION_JSON_TYPE).cacheControl(noCache()).build();
+        }
         try {
-            Map<String, Object> graph = repository.getCharacterInteractionGraph(title);
-            return Response.ok(graph).build();
+            return graphCache.findDramaGraph(title)
+                    .map(cached -> cachedResponse(request, cached))
+                    .orElseGet(() -> streamedResponse(title));
         } catch (Exception e) {
             log.error("Error fetching graph data for drama: " + title, e);
             return Response.serverError().entity("Error fetching graph data: " + e.getMessage()).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @param title name of a drama
+     * @return IDs of the scenes of the drama in their order, to pick scene ranges by ordinal
+     */
+    @GET
+    @Path("/drama/{title}/scenes")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDramaScenes(@PathParam("title") String title) {
+        try {
+            return Response.ok(repository.getSceneIds(title)).build();
+        } catch (Exception e) {
+            log.error("Error fetching scenes of drama: " + title, e);
+            return Response.serverError().entity("Error fetching scenes: " + e.getMessage()).build();
+        }
+    }
+
+    /**
+     * @param title name of a drama
+     * @param request to evaluate {@code If-None-Match} against
+     * @return weighted degree, betweenness, closeness and PageRank of the characters of the drama
+     */
+    @GET
+    @Path("/drama/{title}/metrics")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDramaMetrics(@PathParam("title") String title, @Context Request request) {
+        try {
+            return cachedResponse(request, graphCache.getDramaMetrics(title, () -> Centrality.compute(
+                    repository.getInteractionGraph(title, CharacterGraphRepository.Relation.INTERACTS_WITH))));
+        } catch (Exception e) {
+            log.error("Error computing metrics for drama: " + title, e);
+            return Response.serverError().entity("Error computing metrics: " + e.getMessage()).build();
+        }
+    }
+
+    /**
+     * @param title name of a drama
+     * @param relation {@code interacts-with} (default) or {@code appears-with}, the counts weighing the links
+     * @param request to evaluate {@code If-None-Match} against
+     * @return the communities of the characters of the drama and the modularity of the partition
+     */
+    @GET
+    @Path("/drama/{title}/communities")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDramaCommunities(@PathParam("title") String title, @QueryParam("relation") String relation,
+                                        @Context Request request) {
+        CharacterGraphRepository.Relation weights;
+        try {
+            weights = CharacterGraphRepository.Relation.of(relation);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Unknown relation: " + relation).build();
+        }
+        try {
+            return cachedResponse(request, graphCache.getDramaCommunities(title, weights.name(),
+                    () -> communityDetection.detect(title, weights)));
+        } catch (Exception e) {
+            log.error("Error detecting communities of drama: " + title, e);
+            return Response.serverError().entity("Error detecting communities: " + e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Detects the communities of all dramas and stores them on the characters, returned with the graph afterwards
+     * @param relation {@code interacts-with} (default) or {@code appears-with}, the counts weighing the links
+     * @return REST response accepted with the started detection, or conflict when one is running
+     */
+    @POST
+    @Path("/communities")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response detectCommunities(@QueryParam("relation") String relation) {
+        CharacterGraphRepository.Relation weights;
+        try {
+            weights = CharacterGraphRepository.Relation.of(relation);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Unknown relation: " + relation).build();
+        }
+        return communityDetection.start(weights)
+                .map(job -> Response.accepted(job).build())
+                .orElseGet(() -> Response.status(Response.Status.CONFLICT).entity("A community detection is already running").build());
+    }
+
+    /**
+     * @return REST response with the running or last community detection, or not found when none was started
+     */
+    @GET
+    @Path("/communities")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCommunityDetection() {
+        return communityDetection.getCurrentJob()
+                .map(job -> Response.ok(job).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    /**
+     * Drop the cached graph of a drama, called by the processor after it (re)ingested the drama
+     * @param title name of the drama
+     * @return REST no content response
+     */
+    @DELETE
+    @Path("/cache/drama/{title}")
+    public Response invalidateDrama(@PathParam("title") String title) {
+        graphCache.invalidateDrama(title);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Drop all cached graphs
+     * @return REST no content response
+     */
+    @DELETE
+    @Path("/cache")
+    public Response invalidateAll() {
+        graphCache.invalidateAll();
+        return Response.noContent().build();
+    }
+
+    /**
+     * On a miss the graph is written to the client while it is read from Neo4j, and cached once it is complete,
+     * unless the drama was invalidated meanwhile; its entity tag is only known then, so it is sent with the
+     * following responses
+     */
+    private Response streamedResponse(String title) {
+        StreamingOutput body = output -> {
+            long generation = graphCache.generation();
+            StringWriter copy = new StringWriter();
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            repository.writeCharacterInteractionGraph(title, layout(title, generation), new TeeWriter(out, copy));
+            out.flush();
+            graphCache.putDramaGraph(title, generation, copy.toString());
+        };
+        return Response.ok(body, MediaType.APPLICATION_JSON_TYPE)
+                .cacheControl(noCache())
+                .build();
+    }
+
+    /**
+     * The layout of a drama is computed once from its whole graph, so the cached graph and every scene range of
+     * the drama place its characters alike; a cached layout lacking characters of the graph, left over from
+     * before the drama was ingested again, is computed again
+     * @param generation generation of the cache before the graph was read
+     */
+    private Function<InteractionGraph, Layout> layout(String title, long generation) {
+        return graph -> graphCache.findDramaLayout(title)
+                .filter(layout -> layout.covers(graph))
+                .orElseGet(() -> graphCache.putDramaLayout(title, generation, ForceLayout.compute(graph)));
+    }
+
+    /**
+     * @return 304 if the client already holds the cached content, the content with its entity tag otherwise
+     */
+    private static Response cachedResponse(Request request, GraphCache.CachedJson cached) {
+        EntityTag etag = new EntityTag(cached.etag());
+        CacheControl cacheControl = noCache();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl).build();
+        }
+        return Response.ok(cached.json(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    /**
+     * Clients may keep a response but have to revalidate it, since it changes whenever a drama is ingested
+     */
+    private static CacheControl noCache() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
+    /**
+     * Writes to the response and keeps a copy for the cache
+     */
+    private static final class TeeWriter extends Writer {
+
+        private final Writer out;
+        private final Writer copy;
+
+        TeeWriter(Writer out, Writer copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            copy.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.texttechnology.visualizer;
+
+import com.texttechnology.visualizer.analytics.Communities;
+import com.texttechnology.visualizer.analytics.Louvain;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Detects the communities of the characters of every drama and stores them on the characters.
+ * <p>
+ * The dramas are split among a fork-join pool of {@code visualizer.communities.parallelism} workers,
+ * each of which loads a drama, clusters it and writes the communities back. Only one detection runs at a time.
+ */
+@Slf4j
+@ApplicationScoped
+public class CommunityDetection {
+
+    private final CharacterGraphRepository repository;
+    private final GraphCache graphCache;
+    private final int parallelism;
+    private final AtomicReference<CommunityDetectionJob> currentJob = new AtomicReference<>();
+
+    @Inject
+    public CommunityDetection(CharacterGraphRepository repository,
+                              GraphCache graphCache,
+                              @ConfigProperty(name = "visualizer.communities.parallelism", defaultValue = "4") int parallelism) {
+        this.repository = repository;
+        this.graphCache = graphCache;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param dramaTitle title of the drama
+     * @param relation relation weighing the links between characters
+     * @return the communities of the characters of the drama
+     */
+    public Communities detect(String dramaTitle, CharacterGraphRepository.Relation relation) {
+        return Louvain.detect(repository.getInteractionGraph(dramaTitle, relation));
+    }
+
+    /**
+     * Start detecting the communities of all dramas in the background
+     * @param relation relation weighing the links between characters
+     * @return the started detection, empty if another detection is running
+     */
+    public Optional<CommunityDetectionJob> start(CharacterGraphRepository.Relation relation) {
+        CommunityDetectionJob job = new CommunityDetectionJob(relation);
+        CommunityDetectionJob running = currentJob.get();
+        if ((running != null && running.getFinishedAt() == null) || !currentJob.compareAndSet(running, job)) {
+            return Optional.empty();
+        }
+        Thread.ofVirtual().name("community-detection").start(() -> detectAll(job));
+        return Optional.of(job);
+    }
+
+    /**
+     * @return the running or last detection
+     */
+    public Optional<CommunityDetectionJob> getCurrentJob() {
+        return Optional.ofNullable(currentJob.get());
+    }
+
+    private void detectAll(CommunityDetectionJob job) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<String> titles = repository.getAllDramaTitles();
+            job.dramas(titles.size());
+            log.info("Detecting communities of {} dramas by {} with {} workers", titles.size(), job.getRelation(), parallelism);
+            pool.submit(() -> titles.parallelStream().forEach(title -> {
+                try {
+                    repository.writeCommunities(title, detect(title, job.getRelation()));
+                    graphCache.invalidateDrama(title);
+                    job.detected();
+                } catch (Exception e) {
+                    log.error("Error detecting communities of drama {}", title, e);
+                    job.failed();
+                }
+            })).get();
+            job.complete();
+            log.info("Detected communities of {} dramas, {} failed", job.getDetected(), job.getFailed());
+        } catch (Exception e) {
+            log.error("Community detection failed", e);
+            job.fail(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
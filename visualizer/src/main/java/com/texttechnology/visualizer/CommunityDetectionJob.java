@@ -0,0 +1,74 @@
+package com.texttechnology.visualizer;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the detection of the communities of all dramas
+ */
+@Getter
+@ToString
+public class CommunityDetectionJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final CharacterGraphRepository.Relation relation;
+    private final Instant startedAt = Instant.now();
+    private volatile Status status = Status.RUNNING;
+    private volatile int dramas;
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger detected = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    CommunityDetectionJob(CharacterGraphRepository.Relation relation) {
+        this.relation = relation;
+    }
+
+    /**
+     * @return number of dramas whose communities were written so far
+     */
+    public int getDetected() {
+        return detected.get();
+    }
+
+    /**
+     * @return number of dramas whose communities could not be detected so far
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    void dramas(int dramas) {
+        this.dramas = dramas;
+    }
+
+    void detected() {
+        detected.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(Exception e) {
+        finishedAt = Instant.now();
+        error = e.toString();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,244 @@
+package com.texttechnology.visualizer;
+
+import com.texttechnology.visualizer.analytics.Layout;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of serialized graph responses and of the layouts of drama graphs.
+ * <p>
+ * Entries are evicted least recently used once more than {@code visualizer.cache.max-entries} are held,
+ * expire {@code visualizer.cache.ttl} seconds after they were loaded, and are invalidated
+ * by the processor whenever it (re)ingests a drama. Layouts expire and are invalidated with the graph of their drama.
+ */
+@Slf4j
+@ApplicationScoped
+public class GraphCache {
+
+    private static final String TITLES_KEY = "titles";
+    private static final String DRAMA_KEY_PREFIX = "drama:";
+    private static final String METRICS_KEY_PREFIX = "metrics:";
+    private static final String COMMUNITIES_KEY_PREFIX = "communities:";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Jsonb jsonb = JsonbBuilder.create();
+    private final Map<String, CachedJson> entries;
+    /**
+     * Guarded by {@link #entries} as well, so a layout is checked against invalidations and put atomically
+     */
+    private final Map<String, CachedLayout> layouts;
+    /**
+     * Generation each drama, or the drama titles, were last invalidated at, guarded by {@link #entries};
+     * a response loaded from an earlier generation is not cached, so an invalidation is not undone by a load
+     * that was in flight
+     */
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long allInvalidatedAt;
+    private long generation;
+
+    /**
+     * A serialized response and the entity tag of its content
+     * @param json serialized response
+     * @param etag entity tag, derived from the content so that equal responses share a tag
+     * @param expiresAt epoch milliseconds after which the entry is reloaded
+     */
+    public record CachedJson(String json, String etag, long expiresAt) {
+    }
+
+    private record CachedLayout(Layout layout, long expiresAt) {
+    }
+
+    @Inject
+    public GraphCache(@ConfigProperty(name = "visualizer.cache.max-entries", defaultValue = "200") int maxEntries,
+                      @ConfigProperty(name = "visualizer.cache.ttl", defaultValue = "300") long ttlSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedJson> eldest) {
+                return size() > GraphCache.this.maxEntries;
+            }
+        };
+        this.layouts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedLayout> eldest) {
+                return size() > GraphCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param loader loads the drama titles on a miss
+     * @return the serialized drama titles
+     */
+    public CachedJson getTitles(Supplier<Object> loader) {
+        return get(TITLES_KEY, TITLES_KEY, loader);
+    }
+
+    /**
+     * @param title title of the drama
+     * @return the serialized graph of the drama, empty if it is not cached or expired
+     */
+    public Optional<CachedJson> findDramaGraph(String title) {
+        return find(DRAMA_KEY_PREFIX + title);
+    }
+
+    /**
+     * @param title title of the drama
+     * @param generation generation of the cache before the graph was loaded
+     * @param json  serialized graph of the drama
+     * @return the graph, cached unless the drama was invalidated since the generation
+     */
+    public CachedJson putDramaGraph(String title, long generation, String json) {
+        return put(DRAMA_KEY_PREFIX + title, DRAMA_KEY_PREFIX + title, generation, json);
+    }
+
+    /**
+     * @return the current generation of the cache, to be read before loading a response that is put afterwards
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * The layout is shared by the whole graph and every scene range of a drama, so characters keep their positions
+     * between ranges
+     * @param title title of the drama
+     * @return the positions of the characters of the drama, empty if they are not cached or expired
+     */
+    public Optional<Layout> findDramaLayout(String title) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedLayout cached = layouts.get(title);
+            return cached != null && cached.expiresAt() > now ? Optional.of(cached.layout()) : Optional.empty();
+        }
+    }
+
+    /**
+     * @param title title of the drama
+     * @param generation generation of the cache before the graph the layout was computed from was loaded
+     * @param layout positions of the characters of the drama
+     * @return the layout, cached unless the drama was invalidated since the generation
+     */
+    public Layout putDramaLayout(String title, long generation, Layout layout) {
+        synchronized (entries) {
+            if (Math.max(allInvalidatedAt, invalidatedAt.getOrDefault(DRAMA_KEY_PREFIX + title, 0L)) > generation) {
+                log.debug("Not caching layout of drama {}, it was invalidated while it was computed", title);
+            } else {
+                layouts.put(title, new CachedLayout(layout, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * @param title title of the drama
+     * @param loader computes the centrality of the characters of the drama on a miss
+     * @return the serialized centrality metrics of the drama
+     */
+    public CachedJson getDramaMetrics(String title, Supplier<Object> loader) {
+        return get(DRAMA_KEY_PREFIX + title, METRICS_KEY_PREFIX + title, loader);
+    }
+
+    /**
+     * @param title title of the drama
+     * @param relation name of the relation the communities were detected by
+     * @param loader detects the communities of the characters of the drama on a miss
+     * @return the serialized communities of the drama
+     */
+    public CachedJson getDramaCommunities(String title, String relation, Supplier<Object> loader) {
+        return get(DRAMA_KEY_PREFIX + title, COMMUNITIES_KEY_PREFIX + title + ":" + relation, loader);
+    }
+
+    /**
+     * Drop the graph, layout, metrics and communities of a drama and the drama titles, which change when a drama is added
+     * @param title title of the drama
+     */
+    public void invalidateDrama(String title) {
+        synchronized (entries) {
+            entries.remove(DRAMA_KEY_PREFIX + title);
+            entries.remove(METRICS_KEY_PREFIX + title);
+            entries.keySet().removeIf(key -> key.startsWith(COMMUNITIES_KEY_PREFIX + title + ":"));
+            entries.remove(TITLES_KEY);
+            generation++;
+            invalidatedAt.put(DRAMA_KEY_PREFIX + title, generation);
+            invalidatedAt.put(TITLES_KEY, generation);
+            layouts.remove(title);
+        }
+        log.debug("Invalidated cached graph of drama {}", title);
+    }
+
+    /**
+     * Drop all cached responses and layouts
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            layouts.clear();
+            allInvalidatedAt = ++generation;
+        }
+        log.debug("Invalidated all cached graphs");
+    }
+
+    /**
+     * Loading happens outside the lock, so a slow query for one drama does not block requests for others;
+     * concurrent misses for the same key may load it more than once.
+     * @param scope what invalidates the entry, {@link #TITLES_KEY} or the graph key of its drama
+     */
+    private CachedJson get(String scope, String key, Supplier<Object> loader) {
+        return find(key).orElseGet(() -> {
+            long loadedFrom = generation();
+            return put(scope, key, loadedFrom, jsonb.toJson(loader.get()));
+        });
+    }
+
+    private Optional<CachedJson> find(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedJson cached = entries.get(key);
+            return cached != null && cached.expiresAt() > now ? Optional.of(cached) : Optional.empty();
+        }
+    }
+
+    private CachedJson put(String scope, String key, long loadedFrom, String json) {
+        CachedJson loaded = new CachedJson(json, etag(json), System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            if (Math.max(allInvalidatedAt, invalidatedAt.getOrDefault(scope, 0L)) > loadedFrom) {
+                log.debug("Not caching {}, it was invalidated while it was loaded", key);
+            } else {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @SneakyThrows
+    private static String etag(String json) {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+
+    @PreDestroy
+    @SneakyThrows
+    void close() {
+        jsonb.close();
+    }
+}
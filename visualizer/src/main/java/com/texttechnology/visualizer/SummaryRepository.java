@@ -0,0 +1,144 @@
+package com.texttechnology.visualizer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Pages through the drama and author summaries the processor maintains, sorted by any of their figures
+ */
+@Slf4j
+@ApplicationScoped
+public class SummaryRepository {
+
+    /**
+     * Figures drama summaries can be sorted by; the sort key is part of the query text, so it has to be one of these
+     */
+    public static final Set<String> DRAMA_SORT_KEYS = Set.of("title", "authorName", "date", "castSize", "sceneCount",
+            "edgeCount", "edgeDensity", "averageDegree", "interactionCount", "femaleInteractionCount",
+            "maleInteractionCount", "mixedInteractionCount");
+
+    /**
+     * Figures author summaries can be sorted by
+     */
+    public static final Set<String> AUTHOR_SORT_KEYS = Set.of("authorName", "dramaCount", "averageCastSize",
+            "averageSceneCount", "averageEdgeDensity", "averageDegree", "interactionCount", "femaleInteractionCount",
+            "maleInteractionCount", "mixedInteractionCount");
+
+    private static final String DRAMA_SUMMARIES_QUERY = """
+            MATCH (s:DramaSummary)
+            RETURN s
+            ORDER BY s.%s %s, s.title
+            SKIP $offset LIMIT $limit
+            """;
+
+    private static final String DRAMA_SUMMARY_COUNT_QUERY = """
+            MATCH (s:DramaSummary)
+            RETURN count(s) AS total
+            """;
+
+    private static final String AUTHOR_SUMMARIES_QUERY = """
+            MATCH (a:AuthorSummary)
+            RETURN a
+            ORDER BY a.%s %s, a.authorName
+            SKIP $offset LIMIT $limit
+            """;
+
+    private static final String AUTHOR_SUMMARY_COUNT_QUERY = """
+            MATCH (a:AuthorSummary)
+            RETURN count(a) AS total
+            """;
+
+    private final Driver driver;
+
+    /**
+     * A page of summaries
+     * @param total number of summaries on all pages
+     * @param offset number of summaries before this page
+     * @param limit maximum number of summaries on a page
+     * @param items summaries on this page
+     */
+    public record Page<T>(long total, int offset, int limit, List<T> items) {
+    }
+
+    /**
+     * Figures of a drama; interactions are counted by the sexes of the pair of characters
+     */
+    public record DramaSummary(String title, String authorName, String date, int castSize, int sceneCount,
+                               int edgeCount, double edgeDensity, double averageDegree, long interactionCount,
+                               long femaleInteractionCount, long maleInteractionCount, long mixedInteractionCount) {
+    }
+
+    /**
+     * Figures of all dramas of an author, averaged or summed up
+     */
+    public record AuthorSummary(String authorName, int dramaCount, double averageCastSize, double averageSceneCount,
+                                double averageEdgeDensity, double averageDegree, long interactionCount,
+                                long femaleInteractionCount, long maleInteractionCount, long mixedInteractionCount) {
+    }
+
+    @Inject
+    public SummaryRepository(Driver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * @param sort one of {@link #DRAMA_SORT_KEYS}
+     * @param descending whether the largest come first
+     * @param offset number of summaries to skip
+     * @param limit maximum number of summaries
+     * @return a page of drama summaries
+     */
+    public Page<DramaSummary> getDramaSummaries(String sort, boolean descending, int offset, int limit) {
+        return page(DRAMA_SUMMARIES_QUERY, DRAMA_SUMMARY_COUNT_QUERY, DRAMA_SORT_KEYS, sort, descending, offset, limit,
+                record -> {
+                    Value s = record.get("s");
+                    return new DramaSummary(s.get("title").asString(), s.get("authorName").asString(""),
+                            s.get("date").asString(""), s.get("castSize").asInt(0), s.get("sceneCount").asInt(0),
+                            s.get("edgeCount").asInt(0), s.get("edgeDensity").asDouble(0), s.get("averageDegree").asDouble(0),
+                            s.get("interactionCount").asLong(0), s.get("femaleInteractionCount").asLong(0),
+                            s.get("maleInteractionCount").asLong(0), s.get("mixedInteractionCount").asLong(0));
+                });
+    }
+
+    /**
+     * @param sort one of {@link #AUTHOR_SORT_KEYS}
+     * @param descending whether the largest come first
+     * @param offset number of summaries to skip
+     * @param limit maximum number of summaries
+     * @return a page of author summaries
+     */
+    public Page<AuthorSummary> getAuthorSummaries(String sort, boolean descending, int offset, int limit) {
+        return page(AUTHOR_SUMMARIES_QUERY, AUTHOR_SUMMARY_COUNT_QUERY, AUTHOR_SORT_KEYS, sort, descending, offset, limit,
+                record -> {
+                    Value a = record.get("a");
+                    return new AuthorSummary(a.get("authorName").asString(), a.get("dramaCount").asInt(0),
+                            a.get("averageCastSize").asDouble(0), a.get("averageSceneCount").asDouble(0),
+                            a.get("averageEdgeDensity").asDouble(0), a.get("averageDegree").asDouble(0),
+                            a.get("interactionCount").asLong(0), a.get("femaleInteractionCount").asLong(0),
+                            a.get("maleInteractionCount").asLong(0), a.get("mixedInteractionCount").asLong(0));
+                });
+    }
+
+    private <T> Page<T> page(String query, String countQuery, Set<String> sortKeys, String sort, boolean descending,
+                             int offset, int limit, Function<Record, T> mapper) {
+        if (!sortKeys.contains(sort)) {
+            throw new IllegalArgumentException("Cannot sort by " + sort + ", expected one of " + sortKeys);
+        }
+        try (Session session = driver.session()) {
+            long total = session.run(countQuery).single().get("total").asLong();
+            List<T> items = session.run(query.formatted(sort, descending ? "DESC" : "ASC"),
+                    Values.parameters("offset", offset, "limit", limit)).list(mapper);
+            return new Page<>(total, offset, limit, items);
+        }
+    }
+}
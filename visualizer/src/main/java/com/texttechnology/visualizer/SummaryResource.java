@@ -0,0 +1,86 @@
+package com.texttechnology.visualizer;
+
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Supplier;
+
+/**
+ * Corpus wide comparison of dramas and authors, read from the summaries the processor maintains
+ */
+@Slf4j
+@Path("/api/summaries")
+@RequestScoped
+public class SummaryResource {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final SummaryRepository repository;
+
+    @Inject
+    public SummaryResource(SummaryRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param sort figure to sort by, one of {@link SummaryRepository#DRAMA_SORT_KEYS}
+     * @param order {@code asc} or {@code desc}
+     * @param offset number of dramas to skip
+     * @param limit maximum number of dramas, at most 500
+     * @return a page of drama summaries
+     */
+    @GET
+    @Path("/dramas")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDramaSummaries(@QueryParam("sort") @DefaultValue("title") String sort,
+                                      @QueryParam("order") @DefaultValue("asc") String order,
+                                      @QueryParam("offset") @DefaultValue("0") int offset,
+                                      @QueryParam("limit") @DefaultValue("50") int limit) {
+        return page(order, offset, limit,
+                () -> repository.getDramaSummaries(sort, "desc".equalsIgnoreCase(order), offset, limit));
+    }
+
+    /**
+     * @param sort figure to sort by, one of {@link SummaryRepository#AUTHOR_SORT_KEYS}
+     * @param order {@code asc} or {@code desc}
+     * @param offset number of authors to skip
+     * @param limit maximum number of authors, at most 500
+     * @return a page of author summaries
+     */
+    @GET
+    @Path("/authors")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAuthorSummaries(@QueryParam("sort") @DefaultValue("authorName") String sort,
+                                       @QueryParam("order") @DefaultValue("asc") String order,
+                                       @QueryParam("offset") @DefaultValue("0") int offset,
+                                       @QueryParam("limit") @DefaultValue("50") int limit) {
+        return page(order, offset, limit,
+                () -> repository.getAuthorSummaries(sort, "desc".equalsIgnoreCase(order), offset, limit));
+    }
+
+    private static Response page(String order, int offset, int limit, Supplier<SummaryRepository.Page<?>> loader) {
+        if (!"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Order must be asc or desc").build();
+        }
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Offset must not be negative and limit between 1 and " + MAX_LIMIT).build();
+        }
+        try {
+            return Response.ok(loader.get()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            log.error("Error fetching summaries", e);
+            return Response.serverError().entity("Error fetching summaries: " + e.getMessage()).build();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Centrality measures over an {@link InteractionGraph}.
+ * <p>
+ * Betweenness and closeness come from one breadth first search per character (Brandes), which run in parallel
+ * with a work space of primitive arrays per worker. Distances count interactions, not their weights, since a
+ * higher count makes two characters closer rather than further apart; PageRank and the degree use the counts.
+ */
+public final class Centrality {
+
+    private static final double DAMPING = 0.85;
+    private static final double TOLERANCE = 1e-9;
+    private static final int MAX_ITERATIONS = 100;
+
+    private Centrality() {
+    }
+
+    /**
+     * @param graph interaction graph of a drama
+     * @return the metrics of all characters, highest PageRank first
+     */
+    public static List<CharacterMetrics> compute(InteractionGraph graph) {
+        int size = graph.size();
+        double[] closeness = new double[size];
+        double[] betweenness = IntStream.range(0, size).parallel()
+                .collect(() -> new ShortestPaths(graph, closeness), ShortestPaths::from, ShortestPaths::combine)
+                .dependency;
+        // Every pair was counted from both ends; normalized by the pairs a character can lie between
+        double scale = size > 2 ? 1.0 / ((size - 1.0) * (size - 2.0)) : 0;
+        double[] pageRank = pageRank(graph);
+
+        List<CharacterMetrics> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            metrics.add(new CharacterMetrics(graph.name(i), weightedDegree(graph, i), betweenness[i] * scale,
+                    closeness[i], pageRank[i]));
+        }
+        metrics.sort(Comparator.comparingDouble(CharacterMetrics::pageRank).reversed()
+                .thenComparing(CharacterMetrics::name));
+        return metrics;
+    }
+
+    private static long weightedDegree(InteractionGraph graph, int character) {
+        long degree = 0;
+        for (int e = graph.firstEdge(character); e < graph.endEdge(character); e++) {
+            degree += graph.weight(e);
+        }
+        return degree;
+    }
+
+    /**
+     * Power iteration; characters without interactions spread their rank evenly over all characters
+     */
+    static double[] pageRank(InteractionGraph graph) {
+        int size = graph.size();
+        if (size == 0) return new double[0];
+        double[] strength = new double[size];
+        for (int i = 0; i < size; i++) {
+            strength[i] = weightedDegree(graph, i);
+        }
+        double[] rank = new double[size];
+        double[] next = new double[size];
+        Arrays.fill(rank, 1.0 / size);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double dangling = 0;
+            for (int i = 0; i < size; i++) {
+                if (strength[i] == 0) dangling += rank[i];
+            }
+            double base = (1 - DAMPING) / size + DAMPING * dangling / size;
+            double change = 0;
+            for (int v = 0; v < size; v++) {
+                double sum = 0;
+                for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                    int u = graph.target(e);
+                    sum += rank[u] * graph.weight(e) / strength[u];
+                }
+                next[v] = base + DAMPING * sum;
+                change += Math.abs(next[v] - rank[v]);
+            }
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            if (change < TOLERANCE) break;
+        }
+        return rank;
+    }
+
+    /**
+     * Work space of one worker: the arrays of a single source search, reused for every source it is given, and the
+     * dependencies accumulated over those sources. Closeness is written to the shared array at the source's index.
+     */
+    private static final class ShortestPaths {
+
+        private final InteractionGraph graph;
+        private final double[] closeness;
+        private final double[] dependency;
+        private final int[] distance;
+        private final long[] paths;
+        private final double[] delta;
+        private final int[] order;
+
+        ShortestPaths(InteractionGraph graph, double[] closeness) {
+            int size = graph.size();
+            this.graph = graph;
+            this.closeness = closeness;
+            this.dependency = new double[size];
+            this.distance = new int[size];
+            this.paths = new long[size];
+            this.delta = new double[size];
+            this.order = new int[size];
+        }
+
+        void from(int source) {
+            Arrays.fill(distance, -1);
+            Arrays.fill(paths, 0);
+            Arrays.fill(delta, 0);
+            distance[source] = 0;
+            paths[source] = 1;
+            order[0] = source;
+            int head = 0;
+            int tail = 1;
+            long distanceSum = 0;
+            while (head < tail) {
+                int v = order[head++];
+                distanceSum += distance[v];
+                for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                    int w = graph.target(e);
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1) {
+                        paths[w] += paths[v];
+                    }
+                }
+            }
+            // Wasserman and Faust: characters outside the component of the source lower its closeness
+            int reached = tail - 1;
+            int size = graph.size();
+            closeness[source] = distanceSum > 0 ? ((double) reached / distanceSum) * ((double) reached / (size - 1)) : 0;
+
+            // Walking back from the furthest characters, each passes its dependency on to its predecessors
+            for (int i = tail - 1; i > 0; i--) {
+                int w = order[i];
+                for (int e = graph.firstEdge(w); e < graph.endEdge(w); e++) {
+                    int v = graph.target(e);
+                    if (distance[v] == distance[w] - 1) {
+                        delta[v] += (double) paths[v] / paths[w] * (1 + delta[w]);
+                    }
+                }
+                dependency[w] += delta[w];
+            }
+        }
+
+        void combine(ShortestPaths other) {
+            for (int i = 0; i < dependency.length; i++) {
+                dependency[i] += other.dependency[i];
+            }
+        }
+    }
+}
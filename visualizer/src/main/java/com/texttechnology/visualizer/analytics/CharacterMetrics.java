@@ -0,0 +1,12 @@
+package com.texttechnology.visualizer.analytics;
+
+/**
+ * Centrality of a character within the interaction graph of its drama
+ * @param name           name of the character
+ * @param weightedDegree sum of the interaction counts of the character
+ * @param betweenness    share of shortest paths between other characters passing through the character, 0 to 1
+ * @param closeness      inverse mean distance to the characters it can reach, scaled by the share it can reach
+ * @param pageRank       stationary probability of a random walk along interactions, weighted by their counts
+ */
+public record CharacterMetrics(String name, long weightedDegree, double betweenness, double closeness, double pageRank) {
+}
@@ -0,0 +1,18 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.List;
+
+/**
+ * Partition of the characters of a drama into communities
+ * @param modularity  modularity of the partition, higher for denser communities
+ * @param communities communities, largest first, numbered in that order
+ */
+public record Communities(double modularity, List<Community> communities) {
+
+    /**
+     * @param id         number of the community within its drama
+     * @param characters names of the characters in the community
+     */
+    public record Community(int id, List<String> characters) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Force-directed layout of an {@link InteractionGraph} after Fruchterman and Reingold, with the repulsion between all
+ * characters approximated by Barnes–Hut over a quadtree, so that an iteration takes O(n log n) instead of O(n²).
+ * <p>
+ * Interactions pull characters together, more strongly the more often they interact, gravity keeps characters
+ * without interactions close to the others, and the steps shrink over a fixed number of iterations. Characters start
+ * at positions given by the order of their names, so the same graph always gets the same layout.
+ */
+public final class ForceLayout {
+
+    private static final int ITERATIONS = 300;
+    private static final double INITIAL_TEMPERATURE = 0.1;
+    /**
+     * Pull toward the center, which balances the repulsion of all characters at about half the unit square
+     */
+    private static final double GRAVITY = 4.0;
+    /**
+     * Cells smaller than this share of their distance are treated as a single body
+     */
+    private static final double THETA = 0.8;
+    private static final int MAX_DEPTH = 32;
+    private static final int PARALLEL_THRESHOLD = 512;
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+    private ForceLayout() {
+    }
+
+    /**
+     * @param graph interaction graph of a drama
+     * @return the positions of its characters, scaled into the unit square
+     */
+    public static Layout compute(InteractionGraph graph) {
+        int size = graph.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+        Integer[] byName = new Integer[size];
+        Arrays.setAll(byName, i -> i);
+        Arrays.sort(byName, Comparator.comparing(graph::name));
+        for (int rank = 0; rank < size; rank++) {
+            double radius = 0.5 * Math.sqrt((rank + 0.5) / size);
+            x[byName[rank]] = 0.5 + radius * Math.cos(rank * GOLDEN_ANGLE);
+            y[byName[rank]] = 0.5 + radius * Math.sin(rank * GOLDEN_ANGLE);
+        }
+
+        if (size > 1) {
+            double k = Math.sqrt(1.0 / size);
+            double[] dx = new double[size];
+            double[] dy = new double[size];
+            QuadTree tree = new QuadTree(size);
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                double temperature = INITIAL_TEMPERATURE * (1 - (double) iteration / ITERATIONS);
+                tree.build(x, y);
+                IntStream characters = IntStream.range(0, size);
+                (size >= PARALLEL_THRESHOLD ? characters.parallel() : characters)
+                        .forEach(i -> displacement(graph, tree, x, y, k, i, dx, dy));
+                for (int i = 0; i < size; i++) {
+                    double length = Math.sqrt(dx[i] * dx[i] + dy[i] * dy[i]);
+                    if (length > 0) {
+                        double step = Math.min(length, temperature) / length;
+                        x[i] += dx[i] * step;
+                        y[i] += dy[i] * step;
+                    }
+                }
+            }
+        }
+        return scaled(graph, x, y);
+    }
+
+    /**
+     * Sum of the forces on character {@code i}, written to its slot of {@code dx} and {@code dy}
+     */
+    private static void displacement(InteractionGraph graph, QuadTree tree, double[] x, double[] y, double k, int i,
+                                     double[] dx, double[] dy) {
+        double[] force = tree.repulsion(x[i], y[i], k * k);
+        double fx = force[0];
+        double fy = force[1];
+        for (int e = graph.firstEdge(i); e < graph.endEdge(i); e++) {
+            int j = graph.target(e);
+            double ex = x[j] - x[i];
+            double ey = y[j] - y[i];
+            double distance = Math.sqrt(ex * ex + ey * ey);
+            double attraction = distance / k * (1 + Math.log(Math.max(1, graph.weight(e))));
+            fx += ex * attraction;
+            fy += ey * attraction;
+        }
+        fx -= (x[i] - 0.5) * GRAVITY;
+        fy -= (y[i] - 0.5) * GRAVITY;
+        dx[i] = fx;
+        dy[i] = fy;
+    }
+
+    /**
+     * Scale and center the positions into the unit square, keeping their aspect ratio
+     */
+    private static Layout scaled(InteractionGraph graph, double[] x, double[] y) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double scale = extent > 0 ? 1 / extent : 0;
+        double offsetX = 0.5 - (minX + maxX) / 2 * scale;
+        double offsetY = 0.5 - (minY + maxY) / 2 * scale;
+        Map<String, Layout.Point> points = new HashMap<>();
+        for (int i = 0; i < x.length; i++) {
+            points.put(graph.name(i), new Layout.Point(rounded(x[i] * scale + offsetX), rounded(y[i] * scale + offsetY)));
+        }
+        return new Layout(Map.copyOf(points));
+    }
+
+    /**
+     * Four decimals place a character to a tenth of a pixel on any screen and keep the payload small
+     */
+    private static double rounded(double position) {
+        return Math.round(position * 10_000) / 10_000.0;
+    }
+
+    /**
+     * Quadtree over the positions of one iteration, in flat arrays that are reused by every iteration.
+     * A cell is empty, a leaf holding one character, or split into four children stored next to each other;
+     * every cell knows the number of characters below it and their center of mass.
+     */
+    private static final class QuadTree {
+
+        private static final int EMPTY = -1;
+        private static final int SPLIT = -2;
+
+        private double[] centerX;
+        private double[] centerY;
+        private double[] halfSize;
+        private double[] mass;
+        private double[] sumX;
+        private double[] sumY;
+        private int[] body;
+        private int[] firstChild;
+        private int cells;
+
+        QuadTree(int size) {
+            allocate(Math.max(16, size * 4));
+        }
+
+        void build(double[] x, double[] y) {
+            double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < x.length; i++) {
+                minX = Math.min(minX, x[i]);
+                maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+            cells = 0;
+            cell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1e-9);
+            for (int i = 0; i < x.length; i++) {
+                insert(i, x[i], y[i]);
+            }
+        }
+
+        /**
+         * @return the repulsion of all characters on a character at the given position
+         */
+        double[] repulsion(double px, double py, double kSquared) {
+            double fx = 0;
+            double fy = 0;
+            int[] stack = new int[MAX_DEPTH * 3 + 4];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                if (mass[c] == 0) continue;
+                double ex = px - sumX[c] / mass[c];
+                double ey = py - sumY[c] / mass[c];
+                double distanceSquared = ex * ex + ey * ey;
+                if (body[c] == SPLIT && 4 * halfSize[c] * halfSize[c] >= THETA * THETA * distanceSquared) {
+                    int child = firstChild[c];
+                    for (int q = 0; q < 4; q++) stack[top++] = child + q;
+                    continue;
+                }
+                // The character itself, or characters at the same position, push in no direction
+                if (distanceSquared < 1e-18) continue;
+                double repulsion = kSquared * mass[c] / distanceSquared;
+                fx += ex * repulsion;
+                fy += ey * repulsion;
+            }
+            return new double[]{fx, fy};
+        }
+
+        private void insert(int i, double x, double y) {
+            int c = 0;
+            for (int depth = 0; ; depth++) {
+                if (body[c] == EMPTY) {
+                    body[c] = i;
+                    add(c, x, y);
+                    return;
+                }
+                if (body[c] >= 0) {
+                    // Characters closer than the deepest cell share a leaf, which only adds up their mass
+                    if (depth >= MAX_DEPTH) {
+                        add(c, x, y);
+                        return;
+                    }
+                    split(c);
+                }
+                add(c, x, y);
+                c = firstChild[c] + quadrant(c, x, y);
+            }
+        }
+
+        /**
+         * Turn a leaf into four children and move its character into one of them
+         */
+        private void split(int c) {
+            int character = body[c];
+            double x = sumX[c] / mass[c];
+            double y = sumY[c] / mass[c];
+            double half = halfSize[c] / 2;
+            int child = cell(centerX[c] - half, centerY[c] - half, half);
+            cell(centerX[c] + half, centerY[c] - half, half);
+            cell(centerX[c] - half, centerY[c] + half, half);
+            cell(centerX[c] + half, centerY[c] + half, half);
+            body[c] = SPLIT;
+            firstChild[c] = child;
+            int target = child + quadrant(c, x, y);
+            body[target] = character;
+            mass[target] = mass[c];
+            sumX[target] = sumX[c];
+            sumY[target] = sumY[c];
+        }
+
+        private int quadrant(int c, double x, double y) {
+            return (x >= centerX[c] ? 1 : 0) + (y >= centerY[c] ? 2 : 0);
+        }
+
+        private void add(int c, double x, double y) {
+            mass[c]++;
+            sumX[c] += x;
+            sumY[c] += y;
+        }
+
+        private int cell(double x, double y, double half) {
+            if (cells == body.length) allocate(cells * 2);
+            int c = cells++;
+            centerX[c] = x;
+            centerY[c] = y;
+            halfSize[c] = half;
+            mass[c] = 0;
+            sumX[c] = 0;
+            sumY[c] = 0;
+            body[c] = EMPTY;
+            firstChild[c] = EMPTY;
+            return c;
+        }
+
+        private void allocate(int capacity) {
+            centerX = centerX == null ? new double[capacity] : Arrays.copyOf(centerX, capacity);
+            centerY = centerY == null ? new double[capacity] : Arrays.copyOf(centerY, capacity);
+            halfSize = halfSize == null ? new double[capacity] : Arrays.copyOf(halfSize, capacity);
+            mass = mass == null ? new double[capacity] : Arrays.copyOf(mass, capacity);
+            sumX = sumX == null ? new double[capacity] : Arrays.copyOf(sumX, capacity);
+            sumY = sumY == null ? new double[capacity] : Arrays.copyOf(sumY, capacity);
+            body = body == null ? new int[capacity] : Arrays.copyOf(body, capacity);
+            firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Undirected, weighted interaction graph of the characters of a drama in compressed sparse row form.
+ * <p>
+ * Characters are interned to the indices {@code 0..size()-1}; the neighbours of character {@code i} are
+ * {@code targets[offsets[i]..offsets[i + 1])} with the interaction counts at the same positions in {@code weights}.
+ * Every interaction is stored in both directions.
+ */
+public final class InteractionGraph {
+
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    private InteractionGraph(String[] names, int[] offsets, int[] targets, int[] weights) {
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return number of characters
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int character) {
+        return names[character];
+    }
+
+    public int firstEdge(int character) {
+        return offsets[character];
+    }
+
+    public int endEdge(int character) {
+        return offsets[character + 1];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Collects characters and interactions; characters only named by an interaction are added as well
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private int[] weights = new int[64];
+        private int interactions;
+
+        private Builder() {
+        }
+
+        public Builder character(String name) {
+            intern(name);
+            return this;
+        }
+
+        /**
+         * Self interactions are ignored, they do not connect characters
+         */
+        public Builder interaction(String source, String target, int count) {
+            int from = intern(source);
+            int to = intern(target);
+            if (from == to) return this;
+            if (interactions == sources.length) {
+                sources = Arrays.copyOf(sources, interactions * 2);
+                targets = Arrays.copyOf(targets, interactions * 2);
+                weights = Arrays.copyOf(weights, interactions * 2);
+            }
+            sources[interactions] = from;
+            targets[interactions] = to;
+            weights[interactions] = count;
+            interactions++;
+            return this;
+        }
+
+        public InteractionGraph build() {
+            int size = names.size();
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < interactions; i++) {
+                offsets[sources[i] + 1]++;
+                offsets[targets[i] + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] next = Arrays.copyOf(offsets, size);
+            int[] edgeTargets = new int[interactions * 2];
+            int[] edgeWeights = new int[interactions * 2];
+            for (int i = 0; i < interactions; i++) {
+                int a = next[sources[i]]++;
+                edgeTargets[a] = targets[i];
+                edgeWeights[a] = weights[i];
+                int b = next[targets[i]]++;
+                edgeTargets[b] = sources[i];
+                edgeWeights[b] = weights[i];
+            }
+            return new InteractionGraph(names.toArray(String[]::new), offsets, edgeTargets, edgeWeights);
+        }
+
+        private int intern(String name) {
+            return indices.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+    }
+}
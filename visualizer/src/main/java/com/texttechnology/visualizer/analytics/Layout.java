@@ -0,0 +1,36 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.Map;
+
+/**
+ * Positions of the characters of a drama, within the unit square
+ * @param points position of each character by name
+ */
+public record Layout(Map<String, Point> points) {
+
+    /**
+     * @param x horizontal position, 0 to 1
+     * @param y vertical position, 0 to 1
+     */
+    public record Point(double x, double y) {
+    }
+
+    /**
+     * @param name name of a character
+     * @return position of the character, null if it was not laid out
+     */
+    public Point get(String name) {
+        return points.get(name);
+    }
+
+    /**
+     * @param graph interaction graph of the drama
+     * @return whether every character of the graph has a position
+     */
+    public boolean covers(InteractionGraph graph) {
+        for (int character = 0; character < graph.size(); character++) {
+            if (!points.containsKey(graph.name(character))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,240 @@
+package com.texttechnology.visualizer.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Louvain modularity clustering of an {@link InteractionGraph}.
+ * <p>
+ * Characters are moved to the neighbouring community with the highest modularity gain until no move improves it,
+ * then every community is collapsed into a single node and the moves repeat on the smaller graph, until a level
+ * merges nothing. Each level is held in primitive arrays in the same compressed sparse row form as the input;
+ * the weights inside a collapsed community become a self loop of its node.
+ */
+public final class Louvain {
+
+    /**
+     * Smallest gain a move has to make, so rounding cannot move characters back and forth
+     */
+    private static final double MIN_GAIN = 1e-12;
+
+    private Louvain() {
+    }
+
+    /**
+     * @param graph interaction graph of a drama
+     * @return the communities of its characters
+     */
+    public static Communities detect(InteractionGraph graph) {
+        int size = graph.size();
+        int[] membership = new int[size];
+        Arrays.setAll(membership, i -> i);
+        Level level = Level.of(graph);
+        while (level.size > 0) {
+            int[] community = level.moveNodes();
+            int count = 0;
+            for (int c : community) count = Math.max(count, c + 1);
+            for (int i = 0; i < size; i++) {
+                membership[i] = community[membership[i]];
+            }
+            if (count == level.size) break;
+            level = level.aggregate(community, count);
+        }
+        return communities(graph, membership);
+    }
+
+    /**
+     * Renumbers the communities by size and computes the modularity of the partition on the original graph
+     */
+    private static Communities communities(InteractionGraph graph, int[] membership) {
+        int size = graph.size();
+        List<List<String>> members = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            while (members.size() <= membership[i]) members.add(new ArrayList<>());
+            members.get(membership[i]).add(graph.name(i));
+        }
+
+        double[] inside = new double[members.size()];
+        double[] total = new double[members.size()];
+        double weights = 0;
+        for (int i = 0; i < size; i++) {
+            for (int e = graph.firstEdge(i); e < graph.endEdge(i); e++) {
+                int weight = graph.weight(e);
+                weights += weight;
+                total[membership[i]] += weight;
+                if (membership[graph.target(e)] == membership[i]) inside[membership[i]] += weight;
+            }
+        }
+        double modularity = 0;
+        if (weights > 0) {
+            for (int c = 0; c < members.size(); c++) {
+                modularity += inside[c] / weights - (total[c] / weights) * (total[c] / weights);
+            }
+        }
+
+        List<List<String>> ordered = members.stream()
+                .filter(characters -> !characters.isEmpty())
+                .sorted(Comparator.<List<String>>comparingInt(List::size).reversed())
+                .toList();
+        List<Communities.Community> communities = new ArrayList<>(ordered.size());
+        for (int id = 0; id < ordered.size(); id++) {
+            communities.add(new Communities.Community(id, List.copyOf(ordered.get(id))));
+        }
+        return new Communities(modularity, communities);
+    }
+
+    /**
+     * One level of the clustering, a graph whose nodes are the communities of the level below
+     */
+    private static final class Level {
+
+        private final int size;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final double[] selfLoops;
+        private final double[] strength;
+        private final double totalStrength;
+
+        private Level(int[] offsets, int[] targets, double[] weights, double[] selfLoops) {
+            this.size = selfLoops.length;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.selfLoops = selfLoops;
+            this.strength = new double[size];
+            double totalStrength = 0;
+            for (int i = 0; i < size; i++) {
+                double s = selfLoops[i];
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) s += weights[e];
+                strength[i] = s;
+                totalStrength += s;
+            }
+            this.totalStrength = totalStrength;
+        }
+
+        static Level of(InteractionGraph graph) {
+            int size = graph.size();
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < size; i++) offsets[i + 1] = graph.endEdge(i);
+            int[] targets = new int[offsets[size]];
+            double[] weights = new double[offsets[size]];
+            for (int e = 0; e < targets.length; e++) {
+                targets[e] = graph.target(e);
+                weights[e] = graph.weight(e);
+            }
+            return new Level(offsets, targets, weights, new double[size]);
+        }
+
+        /**
+         * @return the community of every node, numbered from 0 without gaps
+         */
+        int[] moveNodes() {
+            int[] community = new int[size];
+            Arrays.setAll(community, i -> i);
+            if (totalStrength == 0) return community;
+            double[] total = strength.clone();
+            double[] neighbourWeight = new double[size];
+            Arrays.fill(neighbourWeight, -1);
+            int[] neighbours = new int[size];
+
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int i = 0; i < size; i++) {
+                    int own = community[i];
+                    int count = 0;
+                    neighbourWeight[own] = 0;
+                    neighbours[count++] = own;
+                    for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                        int c = community[targets[e]];
+                        if (neighbourWeight[c] < 0) {
+                            neighbourWeight[c] = 0;
+                            neighbours[count++] = c;
+                        }
+                        neighbourWeight[c] += weights[e];
+                    }
+
+                    total[own] -= strength[i];
+                    int best = own;
+                    double bestGain = neighbourWeight[own] - total[own] * strength[i] / totalStrength;
+                    for (int n = 1; n < count; n++) {
+                        int c = neighbours[n];
+                        double gain = neighbourWeight[c] - total[c] * strength[i] / totalStrength;
+                        if (gain > bestGain + MIN_GAIN) {
+                            best = c;
+                            bestGain = gain;
+                        }
+                    }
+                    total[best] += strength[i];
+                    if (best != own) {
+                        community[i] = best;
+                        moved = true;
+                    }
+                    for (int n = 0; n < count; n++) {
+                        neighbourWeight[neighbours[n]] = -1;
+                    }
+                }
+            }
+
+            int[] number = new int[size];
+            Arrays.fill(number, -1);
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                if (number[community[i]] < 0) number[community[i]] = next++;
+                community[i] = number[community[i]];
+            }
+            return community;
+        }
+
+        /**
+         * @return the graph of the communities, with the weights between their nodes summed up
+         */
+        Level aggregate(int[] community, int count) {
+            // Nodes grouped by community, so the edges of a community can be summed up in one go
+            int[] memberOffsets = new int[count + 1];
+            for (int c : community) memberOffsets[c + 1]++;
+            for (int c = 0; c < count; c++) memberOffsets[c + 1] += memberOffsets[c];
+            int[] members = new int[size];
+            int[] fill = Arrays.copyOf(memberOffsets, count);
+            for (int i = 0; i < size; i++) members[fill[community[i]]++] = i;
+
+            int[] offsets = new int[count + 1];
+            int[] targets = new int[this.targets.length];
+            double[] weights = new double[this.targets.length];
+            double[] selfLoops = new double[count];
+            double[] neighbourWeight = new double[count];
+            Arrays.fill(neighbourWeight, -1);
+            int[] neighbours = new int[count];
+            int edges = 0;
+            for (int c = 0; c < count; c++) {
+                int found = 0;
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    int i = members[m];
+                    selfLoops[c] += this.selfLoops[i];
+                    for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                        int d = community[this.targets[e]];
+                        if (d == c) {
+                            selfLoops[c] += this.weights[e];
+                        } else {
+                            if (neighbourWeight[d] < 0) {
+                                neighbourWeight[d] = 0;
+                                neighbours[found++] = d;
+                            }
+                            neighbourWeight[d] += this.weights[e];
+                        }
+                    }
+                }
+                for (int n = 0; n < found; n++) {
+                    targets[edges] = neighbours[n];
+                    weights[edges++] = neighbourWeight[neighbours[n]];
+                    neighbourWeight[neighbours[n]] = -1;
+                }
+                offsets[c + 1] = edges;
+            }
+            return new Level(offsets, Arrays.copyOf(targets, edges), Arrays.copyOf(weights, edges), selfLoops);
+        }
+    }
+}
@@ -9,6 +9,7 @@ let tooltip;
 let zoom;
 let g; // Main group for zooming/panning
 let width, height;
+let precomputedLayout = false; // Nodes placed by the server, so the simulation is not run
 
 // Initialize the visualization
 document.addEventListener('DOMContentLoaded', function() {
@@ -64,7 +65,7 @@ document.addEventListener('DOMContentLoaded', function() {
         svg.attr('viewBox', `0 0 ${width} ${height}`);
 
         // Restart simulation with new center if it exists
-        if (simulation) {
+        if (simulation && !precomputedLayout) {
             simulation.force('center', d3.forceCenter(width / 2, height / 2));
             simulation.alpha(0.3).restart();
         }
@@ -130,6 +131,17 @@ function renderGraph(data) {
     const linkDistance = Math.max(50, Math.min(150, 300 / Math.sqrt(data.nodes.length)));
     const chargeStrength = Math.max(-500, -100 * Math.sqrt(data.nodes.length));
 
+    // Place nodes at the positions computed by the server, given within the unit square
+    const margin = nodeRadius + 10;
+    // Any node without a position falls back to the simulation, so no node is left unplaced
+    precomputedLayout = data.nodes.length > 0 && data.nodes.every(d => d.x !== undefined && d.y !== undefined);
+    if (precomputedLayout) {
+        data.nodes.forEach(d => {
+            d.x = margin + d.x * (width - 2 * margin);
+            d.y = margin + d.y * (height - 2 * margin);
+        });
+    }
+
     // Create force simulation with boundary constraints
     simulation = d3.forceSimulation(data.nodes)
         .force('link', d3.forceLink(data.links).id(d => d.id).distance(linkDistance))
@@ -138,6 +150,9 @@ function renderGraph(data) {
         .force('collision', d3.forceCollide().radius(nodeRadius + 5))
         .force('x', d3.forceX(width / 2).strength(0.1))
         .force('y', d3.forceY(height / 2).strength(0.1));
+    if (precomputedLayout) {
+        simulation.stop();
+    }
 
     // Create links
     const link = g.append('g')
@@ -231,7 +246,6 @@ function renderGraph(data) {
     simulation.on('tick', () => {
         // Constrain nodes to stay within expanded boundaries
         data.nodes.forEach(d => {
-            const margin = nodeRadius + 10;
             d.x = Math.max(margin, Math.min(width - margin, d.x));
             d.y = Math.max(margin, Math.min(height - margin, d.y));
         });
@@ -254,10 +268,15 @@ function renderGraph(data) {
     // Add zoom controls
     addZoomControls();
 
-    // Reset zoom to fit all nodes
-    setTimeout(() => {
+    // Reset zoom to fit all nodes, at once if they are already placed
+    if (precomputedLayout) {
+        simulation.on('tick')();
         fitToView();
-    }, 1000);
+    } else {
+        setTimeout(() => {
+            fitToView();
+        }, 1000);
+    }
 }
 
 // Add zoom control buttons
@@ -388,7 +407,7 @@ function clearGraph() {
 
 // Drag functions for nodes
 function dragstarted(event, d) {
-    if (!event.active) simulation.alphaTarget(0.3).restart();
+    if (!event.active && !precomputedLayout) simulation.alphaTarget(0.3).restart();
     d.fx = d.x;
     d.fy = d.y;
 }
@@ -396,10 +415,16 @@ function dragstarted(event, d) {
 function dragged(event, d) {
     d.fx = event.x;
     d.fy = event.y;
+    // Only the dragged node moves in a precomputed layout
+    if (precomputedLayout) {
+        d.x = event.x;
+        d.y = event.y;
+        simulation.on('tick')();
+    }
 }
 
 function dragended(event, d) {
-    if (!event.active) simulation.alphaTarget(0);
+    if (!event.active && !precomputedLayout) simulation.alphaTarget(0);
     d.fx = null;
     d.fy = null;
 }
\ No newline at end of file